@@ -203,4 +203,14 @@ public class Mdo {
     public static void load(String nativeLibrary) {
         MdoNativeAPI.InstanceHolder.load(nativeLibrary);
     }
+
+    /**
+     * Load the mindopt native library with the given binding, this needs to be called at very beginning
+     * @param nativeLibrary full path of mindopt native dynamic library
+     * @param binding how native functions are bound, {@link MdoNativeBinding#DIRECT} reduces the per-call overhead
+     *                of fine-grained model editing
+     */
+    public static void load(String nativeLibrary, MdoNativeBinding binding) {
+        MdoNativeAPI.InstanceHolder.load(nativeLibrary, binding);
+    }
 }
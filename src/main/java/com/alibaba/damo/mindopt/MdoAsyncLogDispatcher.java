@@ -0,0 +1,239 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log callback which hands messages over to a background thread.
+ *
+ * Solver threads put messages into a bounded lock-free ring and return immediately, a daemon thread drains
+ * the ring in batches and calls the wrapped callback. What happens when the ring is full depends on the
+ * {@link OverflowPolicy}. Pass an instance to {@link MdoModel#setLogCallback(MdoModel.LogCallback)}, one
+ * instance can be shared by several models.
+ */
+public class MdoAsyncLogDispatcher implements MdoModel.LogCallback, AutoCloseable {
+    /**
+     * What to do with a message when the ring is full
+     */
+    public enum OverflowPolicy {
+        /** Discard the message. */
+        DROP,
+        /** Once the ring is half full, keep only every n-th message, discard the message when full. */
+        SAMPLE,
+        /** Wait on the solver thread until there is room. */
+        BLOCK
+    }
+
+    /** Default number of messages the ring holds */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** Default maximum number of messages delivered per batch */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final MdoModel.LogCallback target;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final int batchSize;
+    private final AtomicReferenceArray<String> ring;
+    private final int mask;
+    // Next slot to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+    // Next slot to be drained, only advanced by the drain thread
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong numOffered = new AtomicLong();
+    private final AtomicLong numDropped = new AtomicLong();
+    // Producers inside log(), the drain thread only stops once none of them can still publish
+    private final AtomicInteger numProducers = new AtomicInteger();
+    private final Thread drainer;
+    private volatile boolean idle = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Create a dispatcher with default capacity which drops messages on overflow
+     * @param target the callback called on the background thread
+     */
+    public MdoAsyncLogDispatcher(MdoModel.LogCallback target) {
+        this(target, DEFAULT_CAPACITY, OverflowPolicy.DROP, 1);
+    }
+
+    /**
+     * Create a dispatcher
+     * @param target the callback called on the background thread
+     * @param capacity number of messages the ring holds, rounded up to a power of two
+     * @param policy what to do with a message when the ring is full
+     * @param sampleRate for {@link OverflowPolicy#SAMPLE}, keep one of every {@code sampleRate} messages under pressure
+     */
+    public MdoAsyncLogDispatcher(MdoModel.LogCallback target, int capacity, OverflowPolicy policy, int sampleRate) {
+        if (capacity <= 0 || capacity > (1 << 30) || sampleRate <= 0) {
+            throw new IllegalArgumentException("Bad capacity or sample rate");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.target = target;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.batchSize = Math.min(DEFAULT_BATCH_SIZE, size);
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "mindopt-log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public void log(String msg) {
+        numProducers.incrementAndGet();
+        try {
+            offer(msg == null ? "" : msg);
+        } finally {
+            numProducers.decrementAndGet();
+        }
+    }
+
+    // Null marks a slot which is claimed but not yet published, so messages must not be null
+    private void offer(String msg) {
+        // Checked after registering as a producer, either the drain thread waits for this call or it sees closed
+        if (closed) {
+            numDropped.incrementAndGet();
+            return;
+        }
+        long offered = numOffered.getAndIncrement();
+        while (true) {
+            long t = tail.get();
+            long used = t - head.get();
+            if (used >= ring.length()) {
+                if (policy != OverflowPolicy.BLOCK || closed) {
+                    numDropped.incrementAndGet();
+                    return;
+                }
+                wakeDrainer();
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                continue;
+            }
+            if (policy == OverflowPolicy.SAMPLE && used >= ring.length() / 2 && offered % sampleRate != 0) {
+                numDropped.incrementAndGet();
+                return;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                ring.lazySet((int) (t & mask), msg);
+                wakeDrainer();
+                return;
+            }
+        }
+    }
+
+    private void wakeDrainer() {
+        if (idle) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int drained = drainBatch();
+            if (drained == 0) {
+                if (closed && numProducers.get() == 0 && head.get() == tail.get()) {
+                    return;
+                }
+                idle = true;
+                // Re-check after publishing the idle flag, a producer may have missed it
+                if (ring.get((int) (head.get() & mask)) == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    private int drainBatch() {
+        long h = head.get();
+        int drained = 0;
+        while (drained < batchSize) {
+            int slot = (int) (h & mask);
+            // A claimed slot is published shortly after, stop at the first one not yet visible
+            String msg = ring.get(slot);
+            if (msg == null) {
+                break;
+            }
+            ring.lazySet(slot, null);
+            h++;
+            head.lazySet(h);
+            drained++;
+            try {
+                target.log(msg);
+            } catch (RuntimeException e) {
+                // A failing consumer must not stop the dispatcher
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Number of messages discarded by the overflow policy or after close
+     * @return the count of discarded messages
+     */
+    public long getNumDropped() {
+        return numDropped.get();
+    }
+
+    /**
+     * Wait until all messages accepted so far have been delivered
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return true if all messages were delivered in time
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long end = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head.get() < end) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting messages, deliver the pending ones and stop the background thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
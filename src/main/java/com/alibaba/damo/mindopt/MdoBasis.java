@@ -0,0 +1,194 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Snapshot of the column and row basis of a solved model, to warm start another solve.
+ *
+ * A basis can be restored into the same model after it was modified, or into a copy of it. Statuses are kept as
+ * returned by {@link Mdo#INT_ATTR_COL_BASIS} and {@link Mdo#INT_ATTR_ROW_BASIS}. The binary form stores one byte
+ * per status after a small header.
+ */
+public class MdoBasis {
+    private static final int MAGIC = 0x4D444F42;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4;
+
+    private final int[] colBasis;
+    private final int[] rowBasis;
+
+    /**
+     * Create a basis from status arrays
+     * @param colBasis the status of each variable
+     * @param rowBasis the status of each constraint
+     */
+    public MdoBasis(int[] colBasis, int[] rowBasis) {
+        this.colBasis = colBasis.clone();
+        this.rowBasis = rowBasis.clone();
+    }
+
+    /**
+     * Capture the current basis of a model, with one native call for variables and one for constraints
+     * @param model a model which has been solved
+     * @return the basis
+     */
+    public static MdoBasis capture(MdoProblem model) {
+        int numVars = model.getIntAttr(Mdo.INT_ATTR_NUM_VARS);
+        int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+        return new MdoBasis(
+                model.getIntAttrArray(Mdo.INT_ATTR_COL_BASIS, 0, numVars),
+                model.getIntAttrArray(Mdo.INT_ATTR_ROW_BASIS, 0, numConss));
+    }
+
+    /**
+     * Set the basis of a model for its next solve.
+     *
+     * Only the leading variables and constraints present in both the basis and the model are set, so a basis
+     * captured before variables or constraints were appended still applies to the existing ones.
+     * @param model the model to warm start
+     */
+    public void restore(MdoProblem model) {
+        int numVars = Math.min(colBasis.length, model.getIntAttr(Mdo.INT_ATTR_NUM_VARS));
+        int numConss = Math.min(rowBasis.length, model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS));
+        if (numVars > 0) {
+            model.setIntAttrArray(Mdo.INT_ATTR_COL_BASIS, 0, numVars, colBasis);
+        }
+        if (numConss > 0) {
+            model.setIntAttrArray(Mdo.INT_ATTR_ROW_BASIS, 0, numConss, rowBasis);
+        }
+    }
+
+    public int getNumVars() {
+        return colBasis.length;
+    }
+
+    public int getNumConss() {
+        return rowBasis.length;
+    }
+
+    /**
+     * Get the status of each variable
+     * @return a copy of the column statuses
+     */
+    public int[] getColBasis() {
+        return colBasis.clone();
+    }
+
+    /**
+     * Get the status of each constraint
+     * @return a copy of the row statuses
+     */
+    public int[] getRowBasis() {
+        return rowBasis.clone();
+    }
+
+    /**
+     * Serialize into the compact binary form
+     * @return the serialized basis
+     */
+    public byte[] toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + colBasis.length + rowBasis.length);
+        buf.putInt(MAGIC).put(VERSION).putInt(colBasis.length).putInt(rowBasis.length);
+        putStatuses(buf, colBasis);
+        putStatuses(buf, rowBasis);
+        return buf.array();
+    }
+
+    /**
+     * Deserialize from the compact binary form
+     * @param bytes the serialized basis
+     * @return the basis
+     */
+    public static MdoBasis fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE || buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a serialized basis");
+        }
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported basis version: " + version);
+        }
+        int numVars = buf.getInt();
+        int numConss = buf.getInt();
+        if (numVars < 0 || numConss < 0 || (long) numVars + numConss != buf.remaining()) {
+            throw new IllegalArgumentException("Truncated or corrupted basis");
+        }
+        int[] colBasis = getStatuses(buf, numVars);
+        int[] rowBasis = getStatuses(buf, numConss);
+        return new MdoBasis(colBasis, rowBasis);
+    }
+
+    /**
+     * Write the compact binary form to a stream
+     * @param out the stream
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(toBytes());
+    }
+
+    /**
+     * Read a basis written by {@link #writeTo(OutputStream)}
+     * @param in the stream
+     * @return the basis
+     * @throws IOException if reading fails
+     */
+    public static MdoBasis readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] header = new byte[HEADER_SIZE];
+        data.readFully(header);
+        ByteBuffer buf = ByteBuffer.wrap(header);
+        if (buf.getInt() != MAGIC || buf.get() != VERSION) {
+            throw new IOException("Not a serialized basis or unsupported version");
+        }
+        long size = (long) buf.getInt() + buf.getInt();
+        if (size < 0 || size > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IOException("Truncated or corrupted basis");
+        }
+        byte[] bytes = new byte[HEADER_SIZE + (int) size];
+        System.arraycopy(header, 0, bytes, 0, HEADER_SIZE);
+        data.readFully(bytes, HEADER_SIZE, (int) size);
+        try {
+            return fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static void putStatuses(ByteBuffer buf, int[] statuses) {
+        for (int status : statuses) {
+            if (status < Byte.MIN_VALUE || status > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Basis status out of range: " + status);
+            }
+            buf.put((byte) status);
+        }
+    }
+
+    private static int[] getStatuses(ByteBuffer buf, int len) {
+        int[] statuses = new int[len];
+        for (int i = 0; i < len; i++) {
+            statuses[i] = buf.get();
+        }
+        return statuses;
+    }
+}
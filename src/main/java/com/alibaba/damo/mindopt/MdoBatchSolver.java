@@ -0,0 +1,199 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves independent models in parallel within a fixed budget of cores.
+ *
+ * Each model is given a number of solver threads from its number of nonzero entries, which is applied as
+ * {@link Mdo#INT_PARAM_NUM_THREADS}. Pending models are started largest first whenever enough cores are free,
+ * smaller models fill cores that are too few for the next large one. The sum of threads of running solves
+ * never exceeds the budget.
+ */
+public class MdoBatchSolver implements AutoCloseable {
+    /** Default number of nonzero entries per solver thread */
+    public static final int DEFAULT_ELEMENTS_PER_THREAD = 200000;
+
+    private final int coreBudget;
+    private final int elementsPerThread;
+    private final ExecutorService executor;
+    // Pending jobs, largest first
+    private final List<Job> pending = new ArrayList<>();
+    private int freeCores;
+    private boolean closed = false;
+
+    private static final Comparator<Job> LARGEST_FIRST = new Comparator<Job>() {
+        @Override
+        public int compare(Job a, Job b) {
+            return Long.compare(b.numElements, a.numElements);
+        }
+    };
+
+    private static class Job {
+        final MdoModel model;
+        final long numElements;
+        final int numThreads;
+        final CompletableFuture<MdoSolveOutcome> future = new CompletableFuture<>();
+
+        Job(MdoModel model, long numElements, int numThreads) {
+            this.model = model;
+            this.numElements = numElements;
+            this.numThreads = numThreads;
+        }
+    }
+
+    /**
+     * Create a batch solver using all available processors
+     */
+    public MdoBatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a batch solver
+     * @param coreBudget the maximum number of solver threads running at the same time
+     */
+    public MdoBatchSolver(int coreBudget) {
+        this(coreBudget, DEFAULT_ELEMENTS_PER_THREAD);
+    }
+
+    /**
+     * Create a batch solver
+     * @param coreBudget the maximum number of solver threads running at the same time
+     * @param elementsPerThread number of nonzero entries which justify one more solver thread for a model
+     */
+    public MdoBatchSolver(int coreBudget, int elementsPerThread) {
+        if (coreBudget <= 0 || elementsPerThread <= 0) {
+            throw new IllegalArgumentException("Core budget and elements per thread must be positive");
+        }
+        this.coreBudget = coreBudget;
+        this.elementsPerThread = elementsPerThread;
+        this.freeCores = coreBudget;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(coreBudget, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "mindopt-batch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Number of solver threads a model of the given size is solved with
+     * @param numElements the number of nonzero entries of the model
+     * @return the number of solver threads, between 1 and the core budget
+     */
+    public int getNumThreads(long numElements) {
+        long threads = (numElements + elementsPerThread - 1) / elementsPerThread;
+        return (int) Math.max(1, Math.min(coreBudget, threads));
+    }
+
+    /**
+     * Schedule a list of models to be solved.
+     *
+     * Each future completes as soon as its model is solved, cancelling it before the solve has started skips the
+     * model. The models must not be modified until their futures complete.
+     * @param models the models to solve
+     * @return futures of the outcomes, in the same order as {@code models}
+     */
+    public List<CompletableFuture<MdoSolveOutcome>> solveAll(List<? extends MdoModel> models) {
+        List<CompletableFuture<MdoSolveOutcome>> futures = new ArrayList<>(models.size());
+        List<Job> jobs = new ArrayList<>(models.size());
+        for (MdoModel model : models) {
+            long numElements = model.model.getNumElements();
+            Job job = new Job(model, numElements, getNumThreads(numElements));
+            jobs.add(job);
+            futures.add(job.future);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Batch solver is closed");
+            }
+            pending.addAll(jobs);
+            Collections.sort(pending, LARGEST_FIRST);
+            dispatch();
+        }
+        return futures;
+    }
+
+    // Start pending jobs largest first as long as cores are free, must hold the lock
+    private void dispatch() {
+        for (int i = 0; i < pending.size() && freeCores > 0; ) {
+            Job job = pending.get(i);
+            if (job.future.isDone()) {
+                pending.remove(i);
+            } else if (job.numThreads <= freeCores) {
+                pending.remove(i);
+                freeCores -= job.numThreads;
+                start(job);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void start(final Job job) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!job.future.isDone()) {
+                        job.model.setIntParam(Mdo.INT_PARAM_NUM_THREADS, job.numThreads);
+                        job.model.solveProb();
+                        job.future.complete(MdoSolveOutcome.capture(job.model));
+                    }
+                } catch (Throwable t) {
+                    job.future.completeExceptionally(t);
+                } finally {
+                    synchronized (MdoBatchSolver.this) {
+                        freeCores += job.numThreads;
+                        dispatch();
+                        shutdownIfIdle();
+                    }
+                }
+            }
+        });
+    }
+
+    // Worker threads stop once closed and all scheduled models are done, must hold the lock
+    private void shutdownIfIdle() {
+        if (closed && pending.isEmpty() && freeCores == coreBudget) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stop accepting models, models already scheduled are still solved
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        shutdownIfIdle();
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Column generation driver.
+ *
+ * Each iteration solves the restricted master problem, hands the dual solution to the pricing callback and adds
+ * all columns it returns in one native call. The basis of the existing columns and rows is carried over to the
+ * next solve, so that it starts from the previous optimum. The loop ends when pricing returns no columns, the
+ * master is not solved to optimality, or the iteration limit is reached.
+ */
+public class MdoColumnGenerationEngine {
+    /**
+     * Pricing callback
+     */
+    public interface Pricing {
+        /**
+         * Find columns with negative reduced cost (for minimization)
+         * @param iteration the iteration number, starting from 0
+         * @param duals the dual solution of the restricted master, indexed by constraint index
+         * @param columns the buffer to append new columns to, it is empty on entry
+         */
+        void price(int iteration, double[] duals, Columns columns);
+    }
+
+    /**
+     * Growable buffer of columns in compressed sparse column format
+     */
+    public static class Columns {
+        private int size = 0;
+        private double[] lbs = new double[16];
+        private double[] ubs = new double[16];
+        private double[] objs = new double[16];
+        private int[] bgn = new int[17];
+        private int[] indices = new int[64];
+        private double[] values = new double[64];
+
+        /**
+         * Append a column
+         * @param lb lower bound for the variable
+         * @param ub upper bound for the variable
+         * @param obj objective coefficient for the variable
+         * @param conss indices of constraints the variable belongs to
+         * @param coeffs coefficients of the variable in each constraint
+         */
+        public void add(double lb, double ub, double obj, int[] conss, double[] coeffs) {
+            add(lb, ub, obj, conss, coeffs, conss.length);
+        }
+
+        /**
+         * Append a column
+         * @param lb lower bound for the variable
+         * @param ub upper bound for the variable
+         * @param obj objective coefficient for the variable
+         * @param conss indices of constraints the variable belongs to
+         * @param coeffs coefficients of the variable in each constraint
+         * @param len number of nonzero entries taken from {@code conss} and {@code coeffs}
+         */
+        public void add(double lb, double ub, double obj, int[] conss, double[] coeffs, int len) {
+            if (size == lbs.length) {
+                int capacity = size * 2;
+                lbs = Arrays.copyOf(lbs, capacity);
+                ubs = Arrays.copyOf(ubs, capacity);
+                objs = Arrays.copyOf(objs, capacity);
+                bgn = Arrays.copyOf(bgn, capacity + 1);
+            }
+            int end = bgn[size];
+            if (end + len > indices.length) {
+                int capacity = Math.max(indices.length * 2, end + len);
+                indices = Arrays.copyOf(indices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            System.arraycopy(conss, 0, indices, end, len);
+            System.arraycopy(coeffs, 0, values, end, len);
+            lbs[size] = lb;
+            ubs[size] = ub;
+            objs[size] = obj;
+            bgn[++size] = end + len;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Statistics of one iteration
+     */
+    public static class Iteration {
+        private final int index;
+        private final double objective;
+        private final int numColumnsAdded;
+        private final long solveNanos;
+        private final long pricingNanos;
+        private final long updateNanos;
+
+        Iteration(int index, double objective, int numColumnsAdded, long solveNanos, long pricingNanos, long updateNanos) {
+            this.index = index;
+            this.objective = objective;
+            this.numColumnsAdded = numColumnsAdded;
+            this.solveNanos = solveNanos;
+            this.pricingNanos = pricingNanos;
+            this.updateNanos = updateNanos;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Get the objective value of the restricted master
+         * @return the primal objective value
+         */
+        public double getObjective() {
+            return objective;
+        }
+
+        public int getNumColumnsAdded() {
+            return numColumnsAdded;
+        }
+
+        /**
+         * Get the time spent in the solver, including the basis restore
+         * @return the time in nanoseconds
+         */
+        public long getSolveNanos() {
+            return solveNanos;
+        }
+
+        /**
+         * Get the time spent retrieving duals and in the pricing callback
+         * @return the time in nanoseconds
+         */
+        public long getPricingNanos() {
+            return pricingNanos;
+        }
+
+        /**
+         * Get the time spent saving the basis and adding columns
+         * @return the time in nanoseconds
+         */
+        public long getUpdateNanos() {
+            return updateNanos;
+        }
+    }
+
+    private final MdoModel model;
+    private final Pricing pricing;
+    private final Columns columns = new Columns();
+    private final List<Iteration> iterations = new ArrayList<>();
+    private int maxIterations = Integer.MAX_VALUE;
+    private boolean warmStart = true;
+
+    /**
+     * Create an engine
+     * @param model the restricted master problem
+     * @param pricing the pricing callback
+     */
+    public MdoColumnGenerationEngine(MdoModel model, Pricing pricing) {
+        this.model = model;
+        this.pricing = pricing;
+    }
+
+    /**
+     * Set the maximum number of iterations
+     * @param maxIterations the maximum number of master solves
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Set weather the basis is carried over between iterations (default true)
+     * @param warmStart weather to restart each solve from the previous basis
+     */
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Run column generation
+     * @return the status of the last master solve
+     */
+    public MdoStatus run() {
+        iterations.clear();
+        MdoBasis basis = null;
+        MdoStatus status = MdoStatus.MDO_UNKNOWN;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            long t0 = System.nanoTime();
+            if (basis != null) {
+                basis.restore(model);
+            }
+            model.solveProb();
+            status = model.getStatus();
+            long t1 = System.nanoTime();
+            if (status != MdoStatus.MDO_OPTIMAL) {
+                iterations.add(new Iteration(iteration, Double.NaN, 0, t1 - t0, 0, 0));
+                break;
+            }
+            double objective = model.getRealAttr(Mdo.REAL_ATTR_PRIMAL_OBJ_VAL);
+            int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+            double[] duals = model.getRealAttrArray(Mdo.REAL_ATTR_DUAL_SOLUTION, 0, numConss);
+            columns.clear();
+            pricing.price(iteration, duals, columns);
+            long t2 = System.nanoTime();
+            int numAdded = columns.size();
+            if (numAdded > 0) {
+                if (warmStart) {
+                    // New columns are left to the solver default, they enter the basis by pricing
+                    basis = MdoBasis.capture(model);
+                }
+                model.addVars(numAdded, columns.lbs, columns.ubs, columns.objs, null,
+                        columns.bgn, columns.indices, columns.values, null);
+            }
+            long t3 = System.nanoTime();
+            iterations.add(new Iteration(iteration, objective, numAdded, t1 - t0, t2 - t1, t3 - t2));
+            if (numAdded == 0) {
+                break;
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Get the statistics of the iterations of the last run
+     * @return one entry per master solve
+     */
+    public List<Iteration> getIterations() {
+        return Collections.unmodifiableList(iterations);
+    }
+}
@@ -1,21 +1,40 @@
 package com.alibaba.damo.mindopt;
 
 import com.alibaba.damo.mindopt.impl.MdoNativeEnv;
+import com.alibaba.damo.mindopt.impl.NativeCleaner;
 
 import java.lang.reflect.Constructor;
 
 /**
  * Mindopt environment
  */
-public class MdoEnv {
+public class MdoEnv implements AutoCloseable {
     MdoNativeEnv env = new MdoNativeEnv();
     boolean freed = false;
+    private final NativeCleaner.Cleanable cleanable;
+
+    /**
+     * Releases the native environment, must not reference the MdoEnv so that it can be collected
+     */
+    private static class Release implements Runnable {
+        private final MdoNativeEnv env;
+
+        Release(MdoNativeEnv env) {
+            this.env = env;
+        }
+
+        @Override
+        public void run() {
+            env.freeEnv();
+        }
+    }
 
     /**
      * Mindopt environment constructor
      */
     public MdoEnv() {
         env.createEnv();
+        cleanable = NativeCleaner.register(this, new Release(env));
     }
 
     /**
@@ -54,11 +73,15 @@ public class MdoEnv {
     public void free() {
         if (!freed) {
             freed = true;
-            env.freeEnv();
+            cleanable.clean();
         }
     }
 
-    protected void finalize() throws MdoException {
+    /**
+     * Release the native environment, same as {@link #free()}
+     */
+    @Override
+    public void close() {
         free();
     }
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+/**
+ * Pool of mindopt environments, so that environment creation and license checks stay out of the request path.
+ *
+ * Environments are created on demand up to the pool size, {@link #acquire()} waits while all of them are borrowed.
+ */
+public class MdoEnvPool extends MdoPool<MdoEnv> {
+    /**
+     * Create an environment pool
+     * @param maxSize the maximum number of environments
+     */
+    public MdoEnvPool(int maxSize) {
+        super(maxSize);
+    }
+
+    @Override
+    MdoEnv create() {
+        return new MdoEnv();
+    }
+
+    @Override
+    void reset(MdoEnv env) {
+        if (env.freed) {
+            throw new IllegalStateException("Environment was freed while borrowed");
+        }
+    }
+
+    @Override
+    void destroy(MdoEnv env) {
+        env.free();
+    }
+}
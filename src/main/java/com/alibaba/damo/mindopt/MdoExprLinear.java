@@ -16,42 +16,233 @@
 
 package com.alibaba.damo.mindopt;
 
-import java.util.*;
+import com.alibaba.damo.mindopt.impl.MdoVarImpl;
+import com.alibaba.damo.mindopt.impl.MemoryUtil;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 /**
  * Mathematical linear expression
  */
 public class MdoExprLinear implements MdoExpr {
-    List<Map.Entry<MdoVar, Double>> terms = new ArrayList<Map.Entry<MdoVar, Double>>();
+    /**
+     * Data Structure
+     * Terms are stored as parallel arrays of column indices and coefficients, together with the model
+     * which the variables belong to and the version of its variable table, so that an expression whose
+     * indices were shifted by deleting variables is detected. A direct expression keeps the same arrays in native-order direct
+     * buffers instead, so that they can be handed over to the native library without copying.
+     */
+    MdoProblem model;
+    int modelVersion;
+    int[] indices = EMPTY_INDICES;
+    double[] coeffs = EMPTY_COEFFS;
+    IntBuffer directIndices;
+    DoubleBuffer directCoeffs;
+    int size;
     double constant;
 
-    private static class PairComparator implements Comparator<Map.Entry<MdoVar, Double>> {
-        @Override
-        public int compare(Map.Entry<MdoVar, Double> l, Map.Entry<MdoVar, Double> r) {
-            return l.getKey().getIndex() - r.getKey().getIndex();
-        }
-    }
+    private static final int[] EMPTY_INDICES = new int[0];
+    private static final double[] EMPTY_COEFFS = new double[0];
+    private static final int INSERTION_SORT_THRESHOLD = 16;
 
     /**
-     * Sorts terms by constraint index, merge terms with identical variables
+     * Sorts terms by variable index, merge terms with identical variables
      */
     public void purge() {
         if (size() < 2) return;
-        Collections.sort(terms, new PairComparator());
-        List<Map.Entry<MdoVar, Double>> purged = new ArrayList<Map.Entry<MdoVar, Double>>();
-        purged.add(terms.get(0));
+        if (!isSorted()) {
+            sort(0, size - 1);
+        }
+
+        int last = 0;
+        for (int i = 1; i < size; i++) {
+            if (index(i) == index(last)) {
+                setCoeff(last, coeff(last) + coeff(i));
+            } else {
+                last++;
+                setTerm(last, index(i), coeff(i));
+            }
+        }
+        size = last + 1;
+    }
+
+    private boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (index(i - 1) > index(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void sort(int lo, int hi) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            int pivot = index((lo + hi) >>> 1);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (index(i) < pivot) i++;
+                while (index(j) > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // Recurse into the smaller part, loop on the larger one
+            if (j - lo < hi - i) {
+                sort(lo, j);
+                lo = i;
+            } else {
+                sort(i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int index = index(i);
+            double coeff = coeff(i);
+            int j = i - 1;
+            while (j >= lo && index(j) > index) {
+                setTerm(j + 1, index(j), coeff(j));
+                j--;
+            }
+            setTerm(j + 1, index, coeff);
+        }
+    }
+
+    private void swap(int i, int j) {
+        int index = index(i);
+        double coeff = coeff(i);
+        setTerm(i, index(j), coeff(j));
+        setTerm(j, index, coeff);
+    }
+
+    private int index(int i) {
+        return directIndices == null ? indices[i] : directIndices.get(i);
+    }
 
-        Map.Entry<MdoVar, Double> surface = purged.get(purged.size() - 1);
+    private double coeff(int i) {
+        return directCoeffs == null ? coeffs[i] : directCoeffs.get(i);
+    }
+
+    private void setCoeff(int i, double coeff) {
+        if (directCoeffs == null) {
+            coeffs[i] = coeff;
+        } else {
+            directCoeffs.put(i, coeff);
+        }
+    }
 
-        for (int i = 1; i < terms.size(); i++) {
-            if (surface.getKey().equals(getVar(i))) {
-                surface.setValue(surface.getValue() + getCoeff(i));
+    private void setTerm(int i, int index, double coeff) {
+        if (directIndices == null) {
+            indices[i] = index;
+            coeffs[i] = coeff;
+        } else {
+            directIndices.put(i, index);
+            directCoeffs.put(i, coeff);
+        }
+    }
+
+    private int capacity() {
+        return directIndices == null ? indices.length : directIndices.capacity();
+    }
+
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = capacity();
+        if (capacity > oldCapacity) {
+            int newCapacity = Math.max(capacity, Math.max(8, oldCapacity + (oldCapacity >> 1)));
+            if (directIndices == null) {
+                indices = Arrays.copyOf(indices, newCapacity);
+                coeffs = Arrays.copyOf(coeffs, newCapacity);
             } else {
-                purged.add(terms.get(i));
-                surface = purged.get(purged.size() - 1);
+                IntBuffer newIndices = allocateIndices(newCapacity);
+                DoubleBuffer newCoeffs = allocateCoeffs(newCapacity);
+                for (int i = 0; i < size; i++) {
+                    newIndices.put(i, directIndices.get(i));
+                    newCoeffs.put(i, directCoeffs.get(i));
+                }
+                directIndices = newIndices;
+                directCoeffs = newCoeffs;
             }
         }
-        terms = purged;
+    }
+
+    private static IntBuffer allocateIndices(int capacity) {
+        return ByteBuffer.allocateDirect(Math.max(capacity, 1) * MemoryUtil.INT_SIZE)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static DoubleBuffer allocateCoeffs(int capacity) {
+        return ByteBuffer.allocateDirect(Math.max(capacity, 1) * MemoryUtil.DOUBLE_SIZE)
+                .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    private void bindModel(MdoProblem model, int version) {
+        if (this.model == null || size == 0) {
+            this.model = model;
+            this.modelVersion = version;
+        } else if (this.model != model) {
+            throw new IllegalArgumentException("Variables of different models in one expression");
+        } else if (this.modelVersion != version) {
+            throw new IllegalStateException("Variables were deleted since the expression was built");
+        }
+    }
+
+    private static int varsVersion(MdoProblem model) {
+        return model instanceof MdoModel ? ((MdoModel) model).vars.getVersion() : 0;
+    }
+
+    /**
+     * Check that the terms can be added to the model, their indices must not have been shifted by deleting
+     * variables since the expression was built
+     */
+    void checkCurrent(MdoProblem model) {
+        if (size == 0) {
+            return;
+        }
+        if (this.model != model) {
+            throw new IllegalArgumentException("Expression of another model");
+        }
+        if (modelVersion != varsVersion(model)) {
+            throw new IllegalStateException("Variables were deleted since the expression was built");
+        }
+    }
+
+    /**
+     * Copy the terms to the given arrays
+     */
+    void copyTo(int[] dstIndices, double[] dstCoeffs, int offset) {
+        if (directIndices == null) {
+            System.arraycopy(indices, 0, dstIndices, offset, size);
+            System.arraycopy(coeffs, 0, dstCoeffs, offset, size);
+        } else {
+            ((IntBuffer) directIndices.duplicate().clear()).get(dstIndices, offset, size);
+            ((DoubleBuffer) directCoeffs.duplicate().clear()).get(dstCoeffs, offset, size);
+        }
+    }
+
+    /**
+     * Native memory that holds the column indices, the direct buffer itself is returned for a direct expression
+     */
+    Pointer nativeIndices() {
+        if (directIndices == null) {
+            return MemoryUtil.intArray(indices, 0, size);
+        }
+        return size == 0 ? MemoryUtil.EMPTY_MEMORY : Native.getDirectBufferPointer(directIndices);
+    }
+
+    /**
+     * Native memory that holds the coefficients, the direct buffer itself is returned for a direct expression
+     */
+    Pointer nativeCoeffs() {
+        if (directCoeffs == null) {
+            return MemoryUtil.doubleArray(coeffs, 0, size);
+        }
+        return size == 0 ? MemoryUtil.EMPTY_MEMORY : Native.getDirectBufferPointer(directCoeffs);
     }
 
     /**
@@ -59,6 +250,26 @@ public class MdoExprLinear implements MdoExpr {
      */
     public MdoExprLinear() {}
 
+    /**
+     * Constructor with an initial capacity
+     *
+     * A direct expression stores its terms in native-order direct buffers. When it is added to a model
+     * through {@code MdoModel.addCons} or {@code MdoModel.addRange}, the expression is purged in place
+     * and its buffers are passed to the native library without copying. Reuse one direct expression by
+     * calling {@link #clear()} to avoid allocating buffers for every constraint.
+     * @param capacity the number of terms to reserve
+     * @param direct true to store the terms in direct buffers
+     */
+    public MdoExprLinear(int capacity, boolean direct) {
+        if (direct) {
+            directIndices = allocateIndices(capacity);
+            directCoeffs = allocateCoeffs(capacity);
+        } else if (capacity > 0) {
+            indices = new int[capacity];
+            coeffs = new double[capacity];
+        }
+    }
+
     /**
      * Copy constructor
      * @param another another linear expression
@@ -67,6 +278,14 @@ public class MdoExprLinear implements MdoExpr {
         add(another);
     }
 
+    /**
+     * Check weather the terms of this linear expression are stored in direct buffers
+     * @return true for a direct expression
+     */
+    public boolean isDirect() {
+        return directIndices != null;
+    }
+
     /**
      * Add another linear expression
      * @param rhs the linear expression to be added
@@ -83,9 +302,21 @@ public class MdoExprLinear implements MdoExpr {
     public void multAdd(double multiplier, MdoExprLinear rhs) {
         if (multiplier != 0d) {
             // Fix size first of all
-            int size = rhs.size();
-            for (int i = 0; i < size; i++) {
-                addTerm(rhs.getCoeff(i) * multiplier, rhs.getVar(i));
+            int rhsSize = rhs.size();
+            if (rhsSize > 0) {
+                bindModel(rhs.model, rhs.modelVersion);
+                ensureCapacity(size + rhsSize);
+                if (directIndices == null && rhs.directIndices == null) {
+                    System.arraycopy(rhs.indices, 0, indices, size, rhsSize);
+                    for (int i = 0; i < rhsSize; i++) {
+                        coeffs[size + i] = rhs.coeffs[i] * multiplier;
+                    }
+                } else {
+                    for (int i = 0; i < rhsSize; i++) {
+                        setTerm(size + i, rhs.index(i), rhs.coeff(i) * multiplier);
+                    }
+                }
+                size += rhsSize;
             }
             addConstant(multiplier * rhs.getConstant());
         }
@@ -105,18 +336,22 @@ public class MdoExprLinear implements MdoExpr {
      * @param var the variable object
      */
     public void addTerm(double coeff, MdoVar var) {
-        terms.add(new AbstractMap.SimpleEntry<MdoVar, Double>(var, coeff));
+        if (var.getIndex() < 0) {
+            throw new IllegalArgumentException("Deleted variable");
+        }
+        MdoProblem varModel = ((MdoVarImpl) var).getModel();
+        bindModel(varModel, varsVersion(varModel));
+        ensureCapacity(size + 1);
+        setTerm(size, var.getIndex(), coeff);
+        size++;
     }
-
     /**
      * Add multiple terms to this linear expression
      * @param coeffs the coefficient array
      * @param vars the variable object array
      */
     public void addTerms(double[] coeffs, MdoVar[] vars) {
-        for (int i = 0; i < coeffs.length; i++) {
-            addTerm(coeffs[i], vars[i]);
-        }
+        addTerms(coeffs, vars, 0, coeffs.length);
     }
 
     /**
@@ -127,6 +362,7 @@ public class MdoExprLinear implements MdoExpr {
      * @param len the number of terms to be added from arrays
      */
     public void addTerms(double[] coeffs, MdoVar[] vars, int start, int len) {
+        ensureCapacity(size + len);
         for (int i = start; i < start + len; i++) {
             addTerm(coeffs[i], vars[i]);
         }
@@ -138,7 +374,9 @@ public class MdoExprLinear implements MdoExpr {
      * @return the corresponding variable object
      */
     public MdoVar getVar(int index) {
-        return terms.get(index).getKey();
+        checkTermIndex(index);
+        checkCurrent(model);
+        return model.getVar(index(index));
     }
 
     /**
@@ -147,7 +385,14 @@ public class MdoExprLinear implements MdoExpr {
      * @return the corresponding coefficient
      */
     public double getCoeff(int index) {
-        return terms.get(index).getValue();
+        checkTermIndex(index);
+        return coeff(index);
+    }
+
+    private void checkTermIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
     }
 
     /**
@@ -155,7 +400,11 @@ public class MdoExprLinear implements MdoExpr {
      * @param index the term index
      */
     public void removeTerm(int index) {
-        terms.remove(index);
+        checkTermIndex(index);
+        for (int i = index + 1; i < size; i++) {
+            setTerm(i - 1, index(i), coeff(i));
+        }
+        size--;
     }
 
     /**
@@ -164,14 +413,18 @@ public class MdoExprLinear implements MdoExpr {
      * @return true for successful removal, false if no such term found
      */
     public boolean removeTerm(MdoVar var) {
-        boolean found = false;
-        ListIterator<Map.Entry<MdoVar, Double>> iter = terms.listIterator();
-        while (iter.hasNext()) {
-            if (iter.next().getKey().equals(var)) {
-                found = true;
-                iter.remove();
+        if (size == 0 || model != ((MdoVarImpl) var).getModel()) {
+            return false;
+        }
+        int j = var.getIndex();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (index(i) != j) {
+                setTerm(kept++, index(i), coeff(i));
             }
         }
+        boolean found = kept != size;
+        size = kept;
         return found;
     }
 
@@ -203,7 +456,7 @@ public class MdoExprLinear implements MdoExpr {
      * Remove all terms in this linear expression, and reset constant to zero
      */
     public void clear() {
-        terms.clear();
+        size = 0;
         this.constant = 0;
     }
 
@@ -212,7 +465,7 @@ public class MdoExprLinear implements MdoExpr {
      * @return the number of terms
      */
     public int size() {
-        return this.terms.size();
+        return this.size;
     }
 
     /**
@@ -225,13 +478,17 @@ public class MdoExprLinear implements MdoExpr {
         if (getConstant() != rhs.getConstant()) {
             return false;
         }
+        if (size() > 0 && model != rhs.model) {
+            return false;
+        }
         this.purge();
         rhs.purge();
+        if (size() != rhs.size()) return false;
         for (int i = 0; i < size(); i++) {
-            if (getCoeff(i) != rhs.getCoeff(i)) {
+            if (coeff(i) != rhs.coeff(i)) {
                 return false;
             }
-            if (!getVar(i).equals(rhs.getVar(i))) {
+            if (index(i) != rhs.index(i)) {
                 return false;
             }
         }
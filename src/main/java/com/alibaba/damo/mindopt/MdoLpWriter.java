@@ -0,0 +1,387 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.alibaba.damo.mindopt.impl.MemoryUtil;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer for the linear part of a model in LP format, to any stream or channel.
+ *
+ * Model data is pulled in blocks of rows and columns with one native call per attribute and block. Integral numbers
+ * are formatted straight into a byte buffer and others through a reused StringBuilder, so archiving a model needs
+ * neither a temporary file nor a String per coefficient. Names are the exception, the native API reads them one at
+ * a time. A writer is not thread safe, but can be reused for several models.
+ */
+public class MdoLpWriter {
+    /** Default number of rows or columns read per native call */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LINE_LENGTH = 200;
+    private static final double MAX_EXACT_LONG = 1e15;
+
+    private static final byte[] PLUS = bytes(" + ");
+    private static final byte[] MINUS = bytes(" - ");
+    private static final byte[] LE = bytes(" <= ");
+    private static final byte[] GE = bytes(" >= ");
+    private static final byte[] EQ = bytes(" = ");
+    private static final byte[] INF = bytes("inf");
+
+    private final byte[] digits = new byte[20];
+    private final StringBuilder text = new StringBuilder(32);
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private int lineLength;
+
+    /**
+     * Set the number of rows or columns read per native call
+     * @param blockSize the block size
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Write the model to a stream, the stream is flushed but not closed. Only the linear part can be written, see
+     * {@link #write(MdoModel, WritableByteChannel)}
+     * @param model the model to write
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the model may hold quadratic terms or sym-mat blocks
+     */
+    public void write(MdoModel model, OutputStream out) throws IOException {
+        write(model, Channels.newChannel(out));
+        out.flush();
+    }
+
+    /**
+     * Write the model to a channel, the channel is not closed. Only the linear part can be written, quadratic terms
+     * and sym-mat blocks cannot be read back through the native API, so a model which may hold them is rejected
+     * rather than written incompletely
+     * @param model the model to write
+     * @param channel the channel to write to
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the model may hold quadratic terms or sym-mat blocks
+     */
+    public void write(MdoModel model, WritableByteChannel channel) throws IOException {
+        if (model.mayHaveNonlinearData()) {
+            throw new IllegalArgumentException("Cannot write quadratic terms or sym-mat blocks in LP format");
+        }
+        open(channel);
+        try {
+            int numVars = model.getIntAttr(Mdo.INT_ATTR_NUM_VARS);
+            int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+            byte[][] varNames = new byte[numVars][];
+            for (int j = 0; j < numVars; j++) {
+                varNames[j] = bytes(model.getStrAttrIndex(Mdo.STR_ATTR_COL_NAME, j));
+            }
+            writeObjective(model, numVars, varNames);
+            writeConstraints(model, numConss, varNames);
+            writeBounds(model, numVars, varNames);
+            ascii("End");
+            newLine();
+            flush();
+        } finally {
+            close();
+        }
+    }
+
+    void open(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.lineLength = 0;
+    }
+
+    void close() {
+        this.channel = null;
+        this.buffer = null;
+    }
+
+    private void writeObjective(MdoModel model, int numVars, byte[][] varNames) throws IOException {
+        ascii(model.isMinObjSense() ? "Minimize" : "Maximize");
+        newLine();
+        ascii(" obj:");
+        boolean empty = true;
+        Memory objs = new Memory((long) Math.max(1, Math.min(blockSize, numVars)) * MemoryUtil.DOUBLE_SIZE);
+        for (int start = 0; start < numVars; start += blockSize) {
+            int len = Math.min(blockSize, numVars - start);
+            model.getRealAttrArray(Mdo.REAL_ATTR_OBJ, start, len, objs);
+            for (int k = 0; k < len; k++) {
+                double obj = objs.getDouble((long) k * MemoryUtil.DOUBLE_SIZE);
+                if (obj != 0) {
+                    term(obj, varNames[start + k]);
+                    empty = false;
+                }
+            }
+        }
+        double objConst = model.getObjOffset();
+        if (objConst != 0 || empty) {
+            wrap();
+            put(objConst < 0 ? MINUS : PLUS);
+            number(Math.abs(objConst));
+        }
+        newLine();
+    }
+
+    private void writeConstraints(MdoModel model, int numConss, byte[][] varNames) throws IOException {
+        ascii("Subject To");
+        newLine();
+        int block = Math.max(1, Math.min(blockSize, numConss));
+        Memory rowIndices = new Memory((long) block * MemoryUtil.INT_SIZE);
+        Memory bgn = new Memory((long) (block + 1) * MemoryUtil.INT_SIZE);
+        Memory lhss = new Memory((long) block * MemoryUtil.DOUBLE_SIZE);
+        Memory rhss = new Memory((long) block * MemoryUtil.DOUBLE_SIZE);
+        Memory indices = null;
+        Memory values = null;
+        for (int start = 0; start < numConss; start += blockSize) {
+            int len = Math.min(blockSize, numConss - start);
+            for (int k = 0; k < len; k++) {
+                rowIndices.setInt((long) k * MemoryUtil.INT_SIZE, start + k);
+            }
+            model.getRealAttrArray(Mdo.REAL_ATTR_LHS, start, len, lhss);
+            model.getRealAttrArray(Mdo.REAL_ATTR_RHS, start, len, rhss);
+            int size = model.getRows(len, rowIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0);
+            if (indices == null || indices.size() < (long) size * MemoryUtil.INT_SIZE) {
+                long capacity = Math.max(size, indices == null ? 1 : indices.size() / MemoryUtil.INT_SIZE * 2);
+                indices = new Memory(capacity * MemoryUtil.INT_SIZE);
+                values = new Memory(capacity * MemoryUtil.DOUBLE_SIZE);
+            }
+            if (size > 0) {
+                model.getRows(len, rowIndices, bgn, indices, values, size);
+            } else {
+                bgn.clear((long) (len + 1) * MemoryUtil.INT_SIZE);
+            }
+            for (int k = 0; k < len; k++) {
+                int i = start + k;
+                double lhs = lhss.getDouble((long) k * MemoryUtil.DOUBLE_SIZE);
+                double rhs = rhss.getDouble((long) k * MemoryUtil.DOUBLE_SIZE);
+                put((byte) ' ');
+                put(bytes(model.getStrAttrIndex(Mdo.STR_ATTR_ROW_NAME, i)));
+                put((byte) ':');
+                boolean ranged = lhs > -Mdo.INFINITY && rhs < Mdo.INFINITY && lhs != rhs;
+                if (ranged) {
+                    put((byte) ' ');
+                    number(lhs);
+                    put(LE, 0, LE.length - 1);
+                }
+                int rowBgn = bgn.getInt((long) k * MemoryUtil.INT_SIZE);
+                int rowEnd = bgn.getInt((long) (k + 1) * MemoryUtil.INT_SIZE);
+                for (int e = rowBgn; e < rowEnd; e++) {
+                    term(values.getDouble((long) e * MemoryUtil.DOUBLE_SIZE), varNames[indices.getInt((long) e * MemoryUtil.INT_SIZE)]);
+                }
+                if (rowBgn == rowEnd) {
+                    // LP needs a left-hand side, a zero constant does not change the row
+                    put(PLUS);
+                    number(0);
+                }
+                if (ranged || rhs < Mdo.INFINITY && lhs <= -Mdo.INFINITY) {
+                    put(LE);
+                    number(rhs);
+                } else if (lhs == rhs) {
+                    put(EQ);
+                    number(rhs);
+                } else {
+                    // Also covers free rows, written against -inf so the row is kept
+                    put(GE);
+                    number(lhs);
+                }
+                newLine();
+            }
+        }
+    }
+
+    private void writeBounds(MdoModel model, int numVars, byte[][] varNames) throws IOException {
+        ascii("Bounds");
+        newLine();
+        int block = Math.max(1, Math.min(blockSize, numVars));
+        Memory lbs = new Memory((long) block * MemoryUtil.DOUBLE_SIZE);
+        Memory ubs = new Memory((long) block * MemoryUtil.DOUBLE_SIZE);
+        Memory isIntegers = new Memory((long) block * MemoryUtil.INT_SIZE);
+        boolean[] areIntegers = new boolean[numVars];
+        boolean hasIntegers = false;
+        for (int start = 0; start < numVars; start += blockSize) {
+            int len = Math.min(blockSize, numVars - start);
+            model.getRealAttrArray(Mdo.REAL_ATTR_LB, start, len, lbs);
+            model.getRealAttrArray(Mdo.REAL_ATTR_UB, start, len, ubs);
+            model.getIntAttrArray(Mdo.INT_ATTR_IS_INTEGER, start, len, isIntegers);
+            for (int k = 0; k < len; k++) {
+                double lb = lbs.getDouble((long) k * MemoryUtil.DOUBLE_SIZE);
+                double ub = ubs.getDouble((long) k * MemoryUtil.DOUBLE_SIZE);
+                byte[] name = varNames[start + k];
+                areIntegers[start + k] = isIntegers.getInt((long) k * MemoryUtil.INT_SIZE) != 0;
+                hasIntegers |= areIntegers[start + k];
+                bound(name, lb, ub);
+            }
+        }
+        if (hasIntegers) {
+            ascii("Generals");
+            newLine();
+            for (int j = 0; j < numVars; j++) {
+                if (areIntegers[j]) {
+                    wrap();
+                    put((byte) ' ');
+                    put(varNames[j]);
+                }
+            }
+            newLine();
+        }
+    }
+
+    void bound(byte[] name, double lb, double ub) throws IOException {
+        if (lb == 0 && ub >= Mdo.INFINITY) {
+            // The default bounds
+            return;
+        }
+        put((byte) ' ');
+        if (lb <= -Mdo.INFINITY && ub >= Mdo.INFINITY) {
+            put(name);
+            ascii(" free");
+        } else if (lb == ub) {
+            put(name);
+            put(EQ);
+            number(lb);
+        } else if (lb == 0 && ub >= 0) {
+            // A negative upper bound alone is read as a free lower bound by some readers
+            put(name);
+            put(LE);
+            number(ub);
+        } else if (ub >= Mdo.INFINITY) {
+            put(name);
+            put(GE);
+            number(lb);
+        } else {
+            number(lb);
+            put(LE);
+            put(name);
+            put(LE);
+            number(ub);
+        }
+        newLine();
+    }
+
+    private void term(double coeff, byte[] name) throws IOException {
+        wrap();
+        put(coeff < 0 ? MINUS : PLUS);
+        if (coeff != 1 && coeff != -1) {
+            number(Math.abs(coeff));
+            put((byte) ' ');
+        }
+        put(name);
+    }
+
+    // Continue long expressions on a new line, LP readers limit the line length
+    private void wrap() throws IOException {
+        if (lineLength >= MAX_LINE_LENGTH) {
+            newLine();
+            put((byte) ' ');
+        }
+    }
+
+    void number(double value) throws IOException {
+        if (value >= Mdo.INFINITY || value <= -Mdo.INFINITY) {
+            if (value < 0) {
+                put((byte) '-');
+            }
+            put(INF);
+        } else if (value == (long) value && Math.abs(value) < MAX_EXACT_LONG) {
+            long n = (long) value;
+            if (n < 0) {
+                put((byte) '-');
+                n = -n;
+            }
+            int pos = digits.length;
+            do {
+                digits[--pos] = (byte) ('0' + n % 10);
+                n /= 10;
+            } while (n != 0);
+            put(digits, pos, digits.length - pos);
+        } else {
+            // Shortest representation which reads back to the same double, appended without an interim String
+            text.setLength(0);
+            text.append(value);
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+            lineLength += text.length();
+        }
+    }
+
+    private void ascii(String str) throws IOException {
+        ensure(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            buffer.put((byte) str.charAt(i));
+        }
+        lineLength += str.length();
+    }
+
+    private void put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+        lineLength++;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        put(bytes, 0, bytes.length);
+    }
+
+    private void put(byte[] bytes, int offset, int len) throws IOException {
+        ensure(len);
+        buffer.put(bytes, offset, len);
+        lineLength += len;
+    }
+
+    private void newLine() throws IOException {
+        ensure(1);
+        buffer.put((byte) '\n');
+        lineLength = 0;
+    }
+
+    private void ensure(int len) throws IOException {
+        if (buffer.remaining() < len) {
+            flush();
+            if (buffer.capacity() < len) {
+                buffer = ByteBuffer.allocate(len);
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -19,13 +19,10 @@ package com.alibaba.damo.mindopt;
 
 import com.alibaba.damo.mindopt.impl.*;
 import com.sun.jna.Callback;
-import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 
 /**
@@ -40,11 +37,63 @@ import java.util.List;
  *  <LI>Optimize the problem by calling MdoModel.solveProb</LI>
  *  </OL>
  */
-public class MdoModel implements MdoProblem, MdoSolver {
+public class MdoModel implements MdoProblem, MdoSolver, AutoCloseable {
     protected MdoNativeModel model = new MdoNativeModel();
-    protected List<MdoVar> vars = new ArrayList<>();
-    protected List<MdoCons> conss = new ArrayList<>();
+    protected MdoHandleTable<MdoVar> vars = MdoHandleTable.vars(this);
+    protected MdoHandleTable<MdoCons> conss = MdoHandleTable.conss(this);
     protected boolean freed = false;
+    private NativeCleaner.Cleanable cleanable;
+    private Release release;
+    // Keeps the environment reachable as long as the model is
+    private MdoEnv env;
+    private Callback nativeLogCallback;
+    // Set once quadratic terms or sym-mat blocks may be present, the native API cannot enumerate them
+    private boolean mayHaveQuadratic = false;
+    private boolean mayHaveSymMats = false;
+    // Set once the log output was redirected, the native API cannot restore the defaults
+    private boolean logCustomized = false;
+
+    /**
+     * Releases the native model, must not reference the MdoModel so that it can be collected
+     */
+    private static class Release implements Runnable {
+        private final MdoNativeModel model;
+        // Told once the native model is gone, whether freed explicitly or by the garbage collector
+        private volatile Runnable onFreed;
+
+        Release(MdoNativeModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public void run() {
+            model.freeMdl();
+            Runnable listener = onFreed;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Number of native models which have been created and not yet freed, either explicitly or by the garbage collector
+     * @return the count of live native models
+     */
+    public static int getNumLiveModels() {
+        return MdoNativeModel.getNumLive();
+    }
+
+    /**
+     * Estimate the native memory held by live models, based on their numbers of variables, constraints
+     * and nonzero entries. Memory used while solving is not included.
+     *
+     * Sizes are tracked on the Java side as models change, so this can be called from any thread, also while
+     * models are being modified or solved.
+     * @return estimated bytes of live native models
+     */
+    public static long getLiveModelBytesEstimate() {
+        return MdoNativeModel.getLiveBytesEstimate();
+    }
     /**
      * Default constructor
      * @deprecated Constructor of MdoModel is deprecated since 0.19, use <code>MdoEnv.createModel()</code> instead.
@@ -52,6 +101,8 @@ public class MdoModel implements MdoProblem, MdoSolver {
     @Deprecated
     public MdoModel() {
         model.createMdl();
+        release = new Release(model);
+        cleanable = NativeCleaner.register(this, release);
     }
 
     /**
@@ -61,14 +112,24 @@ public class MdoModel implements MdoProblem, MdoSolver {
      */
     public MdoModel(MdoModel mdl) {
         model = new MdoNativeModel(mdl.model);
-        vars = new ArrayList<>(mdl.vars);
-        conss = new ArrayList<>(mdl.conss);
         freed = mdl.freed;
+        env = mdl.env;
+        mayHaveQuadratic = mdl.mayHaveQuadratic;
+        mayHaveSymMats = mdl.mayHaveSymMats;
+        logCustomized = mdl.logCustomized;
         model.copyMdl(mdl.model);
+        if (!freed) {
+            release = new Release(model);
+            cleanable = NativeCleaner.register(this, release);
+            syncData(true, true);
+        }
     }
 
     private MdoModel(MdoEnv env) {
+        this.env = env;
         env.env.createMdlWithEnv(model);
+        release = new Release(model);
+        cleanable = NativeCleaner.register(this, release);
     }
 
     private char inverse(char sense) {
@@ -83,16 +144,10 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     protected void syncData(boolean syncConss, boolean syncVars) {
         if (syncConss) {
-            this.conss.clear();
-            for (int i = 0; i < model.getNumRows(); i++) {
-                this.conss.add(new MdoConsImpl(this, i));
-            }
+            this.conss.reset(model.getNumRows());
         }
         if (syncVars) {
-            this.vars.clear();
-            for (int i = 0; i < model.getNumCols(); i++) {
-                this.vars.add(new MdoVarImpl(this, i));
-            }
+            this.vars.reset(model.getNumCols());
         }
     }
 
@@ -142,18 +197,30 @@ public class MdoModel implements MdoProblem, MdoSolver {
             code = model.addCol(lb, ub, obj, size, indices, values, pName, isInteger ? 1 : 0);
         }
         MdoResult.checkResult(code);
-        MdoVar var = new MdoVarImpl(this, vars.size());
-        vars.add(var);
-        return var;
+        return vars.add();
     }
 
     @Override
     public MdoVar[] addVars(int count, boolean isInteger) {
-        MdoVar[] vars = new MdoVar[count];
-        for (int i = 0; i < count; i++) {
-            vars[i] = this.addVar(0, Mdo.INFINITY, 0, isInteger, null);
+        if (count <= 0) {
+            return new MdoVar[0];
+        }
+        Pointer areIntegers = Pointer.NULL;
+        if (isInteger) {
+            boolean[] flags = new boolean[count];
+            Arrays.fill(flags, true);
+            areIntegers = MemoryUtil.intArray(flags, 0, count);
         }
-        return vars;
+        double[] ubs = new double[count];
+        Arrays.fill(ubs, Mdo.INFINITY);
+        return addCols(
+                count,
+                MemoryUtil.doubleArray(new double[count]),
+                MemoryUtil.doubleArray(ubs),
+                MemoryUtil.doubleArray(new double[count]),
+                MemoryUtil.zeroIntArray(count + 1), MemoryUtil.EMPTY_MEMORY, MemoryUtil.EMPTY_MEMORY,
+                null, 0, areIntegers
+        );
     }
 
     @Override
@@ -170,24 +237,155 @@ public class MdoModel implements MdoProblem, MdoSolver {
             return new MdoVar[0];
         }
 
-        MdoVar[] result = new MdoVar[len];
-        for (int i = start; i < start + len; i++) {
-            result[i - start] = this.addVar(lbs[i], ubs[i], objs[i], areIntegers[i], names == null ? null : names[i]);
+        return addCols(
+                len,
+                MemoryUtil.doubleArray(lbs, start, len),
+                MemoryUtil.doubleArray(ubs, start, len),
+                MemoryUtil.doubleArray(objs, start, len),
+                MemoryUtil.zeroIntArray(len + 1), MemoryUtil.EMPTY_MEMORY, MemoryUtil.EMPTY_MEMORY,
+                names, start,
+                MemoryUtil.intArray(areIntegers, start, len)
+        );
+    }
+
+    @Override
+    public MdoVar[] addVars(double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers, MdoCol[] cols, String[] names) {
+        int len = lbs.length;
+        if (len == 0) {
+            return new MdoVar[0];
+        }
+
+        // Pack all columns into a single CSC buffer
+        int[] bgn = new int[len + 1];
+        for (int j = 0; j < len; j++) {
+            bgn[j + 1] = bgn[j] + (cols[j] == null ? 0 : cols[j].size());
+        }
+        int[] indices = new int[bgn[len]];
+        double[] values = new double[bgn[len]];
+        for (int j = 0; j < len; j++) {
+            MdoCol col = cols[j];
+            for (int k = bgn[j]; k < bgn[j + 1]; k++) {
+                indices[k] = col.getCons(k - bgn[j]).getIndex();
+                values[k] = col.getCoeff(k - bgn[j]);
+            }
         }
 
-        return result;
+        return addCols(
+                len,
+                MemoryUtil.doubleArray(lbs, 0, len),
+                MemoryUtil.doubleArray(ubs, 0, len),
+                MemoryUtil.doubleArray(objs, 0, len),
+                MemoryUtil.intArray(bgn),
+                MemoryUtil.intArray(indices),
+                MemoryUtil.doubleArray(values),
+                names, 0,
+                MemoryUtil.intArray(areIntegers, 0, len)
+        );
     }
 
     @Override
-    public MdoVar[] addVars(double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers, MdoCol[] cols, String[] names) {
-        if (lbs.length == 0) {
+    public MdoVar[] addVars(int len, double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers,
+                            int[] bgn, int[] indices, double[] values, String[] names) {
+        if (len <= 0) {
             return new MdoVar[0];
         }
-        MdoVar[] result = new MdoVar[lbs.length];
-        for (int i = 0; i < lbs.length; i++) {
-            result[i] = this.addVar(lbs[i], ubs[i], objs[i], areIntegers[i], cols[i] , names == null ? null : names[i]);
+        int numElements = bgn[len];
+        return addCols(
+                len,
+                MemoryUtil.doubleArray(lbs, 0, len),
+                MemoryUtil.doubleArray(ubs, 0, len),
+                MemoryUtil.doubleArray(objs, 0, len),
+                MemoryUtil.intArray(bgn, 0, len + 1),
+                MemoryUtil.intArray(indices, 0, numElements),
+                MemoryUtil.doubleArray(values, 0, numElements),
+                names, 0,
+                MemoryUtil.intArray(areIntegers, 0, len)
+        );
+    }
+
+    private MdoVar[] addCols(int len, Pointer lbs, Pointer ubs, Pointer objs, Pointer bgn,
+                             Pointer indices, Pointer values, String[] names, int start, Pointer areIntegers) {
+        boolean named = isComplete(names, start, len);
+        MdoResult.checkResult(model.addCols(len, lbs, ubs, objs, bgn, indices, values,
+                named ? MemoryUtil.stringArray(names, start, len) : Pointer.NULL, areIntegers));
+        MdoVar[] added = vars.append(len, new MdoVar[len]);
+        if (!named && len > 0) {
+            setNames(Mdo.STR_ATTR_COL_NAME, added[0].getIndex(), names, start, len);
+        }
+        return added;
+    }
+
+    private MdoCons[] addRows(MdoExprLinear[] exprs, double[] lowers, double[] uppers, String[] names, int start, int len) {
+        // Purge every expression and pack them into a single CSR buffer
+        MdoExprLinear[] purged = new MdoExprLinear[len];
+        int[] bgn = new int[len + 1];
+        for (int i = 0; i < len; i++) {
+            MdoExprLinear expr = exprs[start + i];
+            expr.checkCurrent(this);
+            purged[i] = expr.isDirect() ? expr : new MdoExprLinear(expr);
+            purged[i].purge();
+            bgn[i + 1] = bgn[i] + purged[i].size();
+
+            double constant = purged[i].getConstant();
+            if (lowers[i] > Mdo.NEGATIVE_INFINITY && lowers[i] < Mdo.INFINITY) {
+                lowers[i] -= constant;
+            }
+            if (uppers[i] > Mdo.NEGATIVE_INFINITY && uppers[i] < Mdo.INFINITY) {
+                uppers[i] -= constant;
+            }
+        }
+        int[] indices = new int[bgn[len]];
+        double[] values = new double[bgn[len]];
+        for (int i = 0; i < len; i++) {
+            purged[i].copyTo(indices, values, bgn[i]);
+        }
+
+        return addRows(
+                len,
+                MemoryUtil.doubleArray(lowers),
+                MemoryUtil.doubleArray(uppers),
+                MemoryUtil.intArray(bgn),
+                MemoryUtil.intArray(indices),
+                MemoryUtil.doubleArray(values),
+                names, start
+        );
+    }
+
+    private MdoCons[] addRows(int len, Pointer lhss, Pointer rhss, Pointer bgn,
+                              Pointer indices, Pointer values, String[] names, int start) {
+        boolean named = isComplete(names, start, len);
+        MdoResult.checkResult(model.addRows(len, lhss, rhss, bgn, indices, values,
+                named ? MemoryUtil.stringArray(names, start, len) : Pointer.NULL));
+        MdoCons[] added = conss.append(len, new MdoCons[len]);
+        if (!named && len > 0) {
+            setNames(Mdo.STR_ATTR_ROW_NAME, added[0].getIndex(), names, start, len);
+        }
+        return added;
+    }
+
+    // Name arrays are only handed over in full, the native side is never given a NULL name
+    private static boolean isComplete(String[] names, int start, int len) {
+        if (names == null) {
+            return false;
+        }
+        for (int i = start; i < start + len; i++) {
+            if (names[i] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Unnamed entries of a partially named batch keep the native default names
+    private void setNames(String att, int first, String[] names, int start, int len) {
+        if (names == null) {
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            if (names[start + i] != null) {
+                setStrAttrIndex(att, first + i, names[start + i]);
+            }
         }
-        return result;
     }
 
     @Override
@@ -236,7 +434,8 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     @Override
     public MdoCons addCons(MdoExprLinear lhs, char sense, double rhs, String name) {
-        MdoExprLinear expr = new MdoExprLinear(lhs);
+        lhs.checkCurrent(this);
+        MdoExprLinear expr = lhs.isDirect() ? lhs : new MdoExprLinear(lhs);
 
         if (rhs > Mdo.NEGATIVE_INFINITY && rhs < Mdo.INFINITY) {
             rhs -= expr.getConstant();
@@ -244,15 +443,10 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
         expr.purge();
         int size = expr.size();
-        Pointer indices = MemoryUtil.intArray(size);
-        Pointer values = MemoryUtil.doubleArray(size);
+        Pointer indices = expr.nativeIndices();
+        Pointer values = expr.nativeCoeffs();
         Pointer pName = MemoryUtil.charArray(name);
 
-        for (int i = 0; i < expr.size(); i++) {
-            MemoryUtil.setInt(indices, i, expr.getVar(i).getIndex());
-            MemoryUtil.setDouble(values, i, expr.getCoeff(i));
-        }
-
         double l = rhs;
         double r = rhs;
 
@@ -265,14 +459,13 @@ public class MdoModel implements MdoProblem, MdoSolver {
         int code = model.addRow(l, r, size, indices, values, pName);
         MdoResult.checkResult(code);
 
-        MdoCons cons = new MdoConsImpl(this, conss.size());
-        conss.add(cons);
-        return cons;
+        return conss.add();
     }
 
     @Override
     public MdoCons addRange(MdoExprLinear expr, double lower, double upper, String name) {
-        MdoExprLinear expr1 = new MdoExprLinear(expr);
+        expr.checkCurrent(this);
+        MdoExprLinear expr1 = expr.isDirect() ? expr : new MdoExprLinear(expr);
 
         if (upper > Mdo.NEGATIVE_INFINITY && upper < Mdo.INFINITY) {
             upper -= expr.getConstant();
@@ -284,62 +477,57 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
         expr1.purge();
         int size = expr1.size();
-        Pointer indices = MemoryUtil.intArray(size);
-        Pointer values = MemoryUtil.doubleArray(size);
+        Pointer indices = expr1.nativeIndices();
+        Pointer values = expr1.nativeCoeffs();
         Pointer pName = MemoryUtil.charArray(name);
 
-        for (int i = 0; i < expr1.size(); i++) {
-            MemoryUtil.setInt(indices, i, expr1.getVar(i).getIndex());
-            MemoryUtil.setDouble(values, i, expr1.getCoeff(i));
-        }
-
         int code = model.addRow(lower, upper, size, indices, values, pName);
         MdoResult.checkResult(code);
 
-        MdoCons cons = new MdoConsImpl(this, conss.size());
-        conss.add(cons);
-        return cons;
+        return conss.add();
     }
 
     @Override
     public MdoCons[] addConss(int count) {
-        MdoCons[] conss = new MdoCons[count];
-        for (int i = 0; i < count; i++) {
-            int code = model.addRow(Mdo.NEGATIVE_INFINITY, 0, 0, Pointer.NULL, Pointer.NULL, Pointer.NULL);
-            MdoResult.checkResult(code);
-
-            MdoCons cons = new MdoConsImpl(this, this.conss.size());
-            this.conss.add(cons);
-            conss[i] = cons;
+        if (count <= 0) {
+            return new MdoCons[0];
         }
-        return conss;
+        double[] lhss = new double[count];
+        Arrays.fill(lhss, Mdo.NEGATIVE_INFINITY);
+        return addRows(
+                count, MemoryUtil.doubleArray(lhss), MemoryUtil.doubleArray(new double[count]),
+                MemoryUtil.zeroIntArray(count + 1), MemoryUtil.EMPTY_MEMORY, MemoryUtil.EMPTY_MEMORY,
+                null, 0
+        );
     }
 
     @Override
     public MdoCons[] addConss(MdoExprLinear[] lhss, char[] senses, double[] rhss, String[] names) {
-        MdoCons[] conss = new MdoCons[lhss.length];
-        for (int i = 0; i < lhss.length; i++) {
-            conss[i] = this.addCons(lhss[i], senses[i], rhss[i], names == null ? null : names[i]);
-        }
-        return conss;
+        return this.addConss(lhss, senses, rhss, names, 0, lhss.length);
     }
 
     @Override
     public MdoCons[] addConss(MdoExprLinear[] lhss, char[] senses, double[] rhss, String[] names, int start, int len) {
-        MdoCons[] conss = new MdoCons[len];
-        for (int i = start; i < start + len; i++) {
-            conss[i - start] = this.addCons(lhss[i], senses[i], rhss[i], names == null ? null : names[i]);
+        if (len <= 0) {
+            return new MdoCons[0];
         }
-        return conss;
+        double[] lowers = new double[len];
+        double[] uppers = new double[len];
+        for (int i = 0; i < len; i++) {
+            char sense = senses[start + i];
+            lowers[i] = sense == Mdo.LESS_EQUAL ? Mdo.NEGATIVE_INFINITY : rhss[start + i];
+            uppers[i] = sense == Mdo.GREATER_EQUAL ? Mdo.INFINITY : rhss[start + i];
+        }
+        return addRows(lhss, lowers, uppers, names, start, len);
     }
 
     @Override
     public MdoCons[] addRanges(MdoExprLinear[] exprs, double[] lowers, double[] uppers, String[] names) {
-        MdoCons[] conss = new MdoCons[exprs.length];
-        for (int i = 0; i < exprs.length; i++) {
-            conss[i] = this.addRange(exprs[i], lowers[i], uppers[i], names == null ? null : names[i]);
+        int len = exprs.length;
+        if (len == 0) {
+            return new MdoCons[0];
         }
-        return conss;
+        return addRows(exprs, Arrays.copyOf(lowers, len), Arrays.copyOf(uppers, len), names, 0, len);
     }
 
     @Override
@@ -360,7 +548,14 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     @Override
     public MdoVar getVar(String name) {
-        int j = model.getColIndex(MemoryUtil.charArray(name));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        int j;
+        try {
+            j = model.getColIndex(scratch.charArray(name));
+        } finally {
+            scratch.release(mark);
+        }
         if (j < 0) {
             MdoResult.checkResult(MdoResult.MDO_MODEL_INVALID_COL_NAME.getCode());
         }
@@ -369,7 +564,14 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     @Override
     public MdoCons getCons(String name) {
-        int i = model.getRowIndex(MemoryUtil.charArray(name));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        int i;
+        try {
+            i = model.getRowIndex(scratch.charArray(name));
+        } finally {
+            scratch.release(mark);
+        }
         if (i < 0) {
             MdoResult.checkResult(MdoResult.MDO_MODEL_INVALID_ROW_NAME.getCode());
         }
@@ -378,119 +580,197 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     @Override
     public MdoVar[] getVars() {
-        return vars.toArray(new MdoVar[0]);
+        return vars.toArray(new MdoVar[vars.size()]);
     }
 
     @Override
     public MdoCons[] getConss() {
-        return conss.toArray(new MdoCons[0]);
+        return conss.toArray(new MdoCons[conss.size()]);
+    }
+
+    @Override
+    public void loadModel(int numVars, int numConss, int[] bgn, int[] indices, double[] values,
+                          double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers, double objConst, boolean isMin,
+                          double[] lhss, double[] rhss, String[] varNames, String[] consNames) {
+        int numElements = bgn[numVars];
+        loadModel(numVars, numConss,
+                MemoryUtil.intArray(bgn, 0, numVars + 1),
+                MemoryUtil.intArray(indices, 0, numElements),
+                MemoryUtil.doubleArray(values, 0, numElements),
+                MemoryUtil.doubleArray(lbs, 0, numVars),
+                MemoryUtil.doubleArray(ubs, 0, numVars),
+                MemoryUtil.doubleArray(objs, 0, numVars),
+                MemoryUtil.intArray(areIntegers, 0, numVars),
+                objConst, isMin,
+                MemoryUtil.doubleArray(lhss, 0, numConss),
+                MemoryUtil.doubleArray(rhss, 0, numConss),
+                MemoryUtil.stringArray(varNames, 0, numVars),
+                MemoryUtil.stringArray(consNames, 0, numConss));
+    }
+
+    void loadModel(int numVars, int numConss, Pointer bgn, Pointer indices, Pointer values,
+                   Pointer lbs, Pointer ubs, Pointer objs, Pointer areIntegers, double objConst, boolean isMin,
+                   Pointer lhss, Pointer rhss, Pointer varNames, Pointer consNames) {
+        MdoResult.checkResult(model.loadModel(numVars, numConss, bgn, indices, values, lbs, ubs, objs, areIntegers,
+                objConst, isMin ? 1 : 0, lhss, rhss, varNames, consNames));
+        syncData(true, true);
     }
 
     @Override
     public void deleteVars(MdoVar[] vars) {
-        List<Integer> indices = new ArrayList<>();
-        for (MdoVar var : vars) {
-            indices.add(var.getIndex());
+        int[] indices = sortedUnique(indicesOf(vars));
+        if (indices.length == 0) {
+            return;
         }
-
-        Collections.sort(indices);
-        int len = 1;
-        for (int i = 1; i < indices.size(); i++) {
-            if (indices.get(i).intValue() != indices.get(i - 1)) {
-                len++;
-            }
-        }
-
-        Pointer pIndices = MemoryUtil.intArray(len);
-        int offset = 0;
-
-        MemoryUtil.setInt(pIndices, offset++, indices.get(0));
-        for (int i = 1; i < indices.size(); i++) {
-            if (indices.get(i).intValue() != indices.get(i - 1)) {
-                MemoryUtil.setInt(pIndices, offset++, indices.get(i));
-            }
-        }
-
-        MdoResult.checkResult(model.deleteCols(len, pIndices));
-        syncData(false, true);
+        MdoResult.checkResult(model.deleteCols(indices.length, MemoryUtil.intArray(indices)));
+        this.vars.delete(indices);
     }
 
     @Override
     public void deleteConss(MdoCons[] conss) {
-        List<Integer> indices = new ArrayList<>();
-        for (MdoCons cons : conss) {
-            indices.add(cons.getIndex());
+        int[] indices = sortedUnique(indicesOf(conss));
+        if (indices.length == 0) {
+            return;
         }
+        MdoResult.checkResult(model.deleteRows(indices.length, MemoryUtil.intArray(indices)));
+        this.conss.delete(indices);
+    }
 
-        Collections.sort(indices);
-        int len = 1;
-        for (int i = 1; i < indices.size(); i++) {
-            if (indices.get(i).intValue() != indices.get(i - 1)) {
-                len++;
+    private static int[] sortedUnique(int[] indices) {
+        Arrays.sort(indices);
+        int len = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (len == 0 || indices[i] != indices[len - 1]) {
+                indices[len++] = indices[i];
             }
         }
+        return len == indices.length ? indices : Arrays.copyOf(indices, len);
+    }
 
-        Pointer pIndices = MemoryUtil.intArray(len);
-        int offset = 0;
 
-        MemoryUtil.setInt(pIndices, offset++, indices.get(0));
-        for (int i = 1; i < indices.size(); i++) {
-            if (indices.get(i).intValue() != indices.get(i - 1)) {
-                MemoryUtil.setInt(pIndices, offset++, indices.get(i));
-            }
+    /**
+     * Remove all variables, constraints, nonzero entries and quadratic terms, and restore the objective sense and
+     * offset. Sym-mat blocks and log settings are kept, see {@link #isReusable()}.
+     */
+    void clear() {
+        MdoResult.checkResult(model.deleteAllQuadraticElements());
+        mayHaveQuadratic = false;
+        MdoResult.checkResult(model.deleteAllElements());
+        int numRows = model.getNumRows();
+        if (numRows > 0) {
+            MdoResult.checkResult(model.deleteRows(numRows, MemoryUtil.intArray(range(numRows))));
         }
+        int numCols = model.getNumCols();
+        if (numCols > 0) {
+            MdoResult.checkResult(model.deleteCols(numCols, MemoryUtil.intArray(range(numCols))));
+        }
+        model.setMinObjSense();
+        model.setObjOffset(0);
+        syncData(true, true);
+    }
 
-        MdoResult.checkResult(model.deleteRows(len, pIndices));
-        syncData(true, false);
+    /**
+     * Check weather the model may hold quadratic terms or sym-mat blocks. These cannot be read back through the
+     * native API, so they are tracked from the calls which may add them: setting quadratic elements, adding
+     * sym-mats and reading a problem or task from a file. {@code loadModel} only replaces the linear part.
+     */
+    /**
+     * Set a listener run once the native model has been freed, explicitly or after the model became unreachable.
+     * The listener must not reference this model, or it is never collected.
+     */
+    void setFreeListener(Runnable listener) {
+        release.onFreed = listener;
     }
 
+    boolean mayHaveNonlinearData() {
+        return mayHaveQuadratic || mayHaveSymMats;
+    }
+
+    /**
+     * Check weather {@link #clear()} brings the model back to the state of a new one. Sym-mat blocks cannot be
+     * deleted and log settings cannot be restored through the native API.
+     */
+    boolean isReusable() {
+        return !mayHaveSymMats && !logCustomized;
+    }
+
+    private static int[] range(int len) {
+        int[] indices = new int[len];
+        for (int i = 0; i < len; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
 
     @Override
     public MdoCol getCol(MdoVar var) {
-        int j = var.getIndex();
-        Pointer realSize = MemoryUtil.intByReference();
-        Pointer colIndices = MemoryUtil.intArray(1);
-        MemoryUtil.setInt(colIndices, 0, j);
-
-        MdoResult.checkResult(model.getCols(1, colIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0, realSize));
+        MdoSparseMatrix matrix = getColsCSC(new int[] {var.getIndex()});
         MdoCol col = new MdoCol();
-        if (realSize.getInt(0) > 0) {
-            Pointer bgn = MemoryUtil.intArray(2);
-            Pointer indices = MemoryUtil.intArray(realSize.getInt(0));
-            Pointer values = MemoryUtil.doubleArray(realSize.getInt(0));
-            MdoResult.checkResult(model.getCols(1, colIndices, bgn, indices, values, realSize.getInt(0), realSize));
-            for (int i = 0; i < realSize.getInt(0); i++) {
-                double coeff = MemoryUtil.getDouble(values, i);
-                MdoCons cons = conss.get(MemoryUtil.getInt(indices, i));
-                col.addTerm(coeff, cons);
-            }
+        int[] indices = matrix.getIndices();
+        double[] values = matrix.getValues();
+        for (int e = 0; e < indices.length; e++) {
+            col.addTerm(values[e], conss.get(indices[e]));
         }
         return col;
     }
 
     @Override
     public MdoExprLinear getExprLinear(MdoCons cons) {
-        int i = cons.getIndex();
-        Pointer realSize = MemoryUtil.intByReference();
-        Pointer rowIndices = MemoryUtil.intArray(1);
-        MemoryUtil.setInt(rowIndices, 0, i);
-
-        MdoResult.checkResult(model.getRows(1, rowIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0, realSize));
+        MdoSparseMatrix matrix = getRowsCSR(new int[] {cons.getIndex()});
         MdoExprLinear expr = new MdoExprLinear();
-        if (realSize.getInt(0) > 0) {
-            Pointer bgn = MemoryUtil.intArray(2);
-            Pointer indices = MemoryUtil.intArray(realSize.getInt(0));
-            Pointer values = MemoryUtil.doubleArray(realSize.getInt(0));
-            MdoResult.checkResult(model.getRows(1, rowIndices, bgn, indices, values, realSize.getInt(0), realSize));
-            for (int j = 0; j < realSize.getInt(0); j++) {
-                double coeff = MemoryUtil.getDouble(values, j);
-                MdoVar var = vars.get(MemoryUtil.getInt(indices, j));
-                expr.addTerm(coeff, var);
-            }
+        int[] indices = matrix.getIndices();
+        double[] values = matrix.getValues();
+        for (int e = 0; e < indices.length; e++) {
+            expr.addTerm(values[e], vars.get(indices[e]));
         }
         return expr;
     }
 
+    @Override
+    public MdoSparseMatrix getColsCSC(int[] indices) {
+        return getVectors(true, indices, -1);
+    }
+
+    @Override
+    public MdoSparseMatrix getColsCSC() {
+        return getVectors(true, range(vars.size()), model.getNumElements());
+    }
+
+    @Override
+    public MdoSparseMatrix getRowsCSR(int[] indices) {
+        return getVectors(false, indices, -1);
+    }
+
+    @Override
+    public MdoSparseMatrix getRowsCSR() {
+        return getVectors(false, range(conss.size()), model.getNumElements());
+    }
+
+    // Get columns or rows, the number of elements is probed with an extra native call if not known
+    private MdoSparseMatrix getVectors(boolean byCols, int[] vectorIndices, int size) {
+        int len = vectorIndices.length;
+        if (len == 0) {
+            return new MdoSparseMatrix(new int[0], new int[1], new int[0], new double[0]);
+        }
+        Pointer pVectorIndices = MemoryUtil.intArray(vectorIndices);
+        if (size < 0) {
+            size = byCols
+                    ? getCols(len, pVectorIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0)
+                    : getRows(len, pVectorIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0);
+        }
+        if (size == 0) {
+            return new MdoSparseMatrix(vectorIndices.clone(), new int[len + 1], new int[0], new double[0]);
+        }
+        Pointer bgn = MemoryUtil.intArray(len + 1);
+        Pointer indices = MemoryUtil.intArray(size);
+        Pointer values = MemoryUtil.doubleArray(size);
+        int realSize = byCols
+                ? getCols(len, pVectorIndices, bgn, indices, values, size)
+                : getRows(len, pVectorIndices, bgn, indices, values, size);
+        return new MdoSparseMatrix(vectorIndices.clone(), bgn.getIntArray(0, len + 1),
+                indices.getIntArray(0, realSize), values.getDoubleArray(0, realSize));
+    }
+
     @Override
     public boolean isMinObjSense() {
         return model.isMinObjSense() != 0;
@@ -607,6 +887,7 @@ public class MdoModel implements MdoProblem, MdoSolver {
         }
 
         MdoResult.checkResult(model.setQuadraticElements(vars1.length, colIndices1, colIndices2, pValues));
+        mayHaveQuadratic |= vars1.length > 0;
     }
 
     @Override
@@ -625,229 +906,521 @@ public class MdoModel implements MdoProblem, MdoSolver {
     @Override
     public void deleteAllQuadraticElements() {
         MdoResult.checkResult(model.deleteAllQuadraticElements());
+        mayHaveQuadratic = false;
     }
 
     @Override
     public void setStrAttrIndex(String att, int index, String val) {
-        MdoResult.checkResult(model.setStrAttrIndex(MemoryUtil.charArray(att), index, MemoryUtil.charArray(val)));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setStrAttrIndex(scratch.internedString(att), index, scratch.charArray(val)));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public String getStrAttrIndex(String att, int index) {
-        Pointer buffer = new Memory(Mdo.MAX_NATIVE_STR_LEN);
-        MdoResult.checkResult(model.getStrAttrIndex(MemoryUtil.charArray(att), index, Mdo.MAX_NATIVE_STR_LEN, buffer));
-        return Native.toString(buffer.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer buffer = scratch.nativeString();
+            MdoResult.checkResult(model.getStrAttrIndex(scratch.internedString(att), index, Mdo.MAX_NATIVE_STR_LEN, buffer));
+            return Native.toString(buffer.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setIntAttrIndex(String att, int index, int val) {
-        MdoResult.checkResult(model.setIntAttrIndex(MemoryUtil.charArray(att), index, val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setIntAttrIndex(scratch.internedString(att), index, val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public int getIntAttrIndex(String att, int index) {
-        Pointer n = MemoryUtil.intByReference();
-        MdoResult.checkResult(model.getIntAttrIndex(MemoryUtil.charArray(att), index, n));
-        return n.getInt(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer n = scratch.intByReference();
+            MdoResult.checkResult(model.getIntAttrIndex(scratch.internedString(att), index, n));
+            return n.getInt(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setRealAttrIndex(String att, int index, double val) {
-        MdoResult.checkResult(model.setRealAttrIndex(MemoryUtil.charArray(att), index, val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setRealAttrIndex(scratch.internedString(att), index, val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public double getRealAttrIndex(String att, int index) {
-        Pointer d = MemoryUtil.doubleByReference();
-        MdoResult.checkResult(model.getRealAttrIndex(MemoryUtil.charArray(att), index, d));
-        return d.getDouble(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer d = scratch.doubleByReference();
+            MdoResult.checkResult(model.getRealAttrIndex(scratch.internedString(att), index, d));
+            return d.getDouble(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setIntAttrArray(String att, int start, int len, int[] val) {
-        MdoResult.checkResult(model.setIntAttrArray(MemoryUtil.charArray(att), start, len, MemoryUtil.intArray(val)));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            // A null array is passed on as a null pointer, the native side reports the error
+            Pointer pVal = Pointer.NULL;
+            if (val != null) {
+                pVal = scratch.intArray(len);
+                pVal.write(0, val, 0, len);
+            }
+            MdoResult.checkResult(model.setIntAttrArray(scratch.internedString(att), start, len, pVal));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public int[] getIntAttrArray(String att, int start, int len) {
-        Pointer val = MemoryUtil.intArray(len);
-        MdoResult.checkResult(model.getIntAttrArray(MemoryUtil.charArray(att), start, len, val));
-        return val.getIntArray(0, len);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.intArray(len);
+            MdoResult.checkResult(model.getIntAttrArray(scratch.internedString(att), start, len, val));
+            return val.getIntArray(0, len);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setRealAttrArray(String att, int start, int len, double[] val) {
-        MdoResult.checkResult(model.setRealAttrArray(MemoryUtil.charArray(att), start, len, MemoryUtil.doubleArray(val)));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            // A null array is passed on as a null pointer, the native side reports the error
+            Pointer pVal = Pointer.NULL;
+            if (val != null) {
+                pVal = scratch.doubleArray(len);
+                pVal.write(0, val, 0, len);
+            }
+            MdoResult.checkResult(model.setRealAttrArray(scratch.internedString(att), start, len, pVal));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public double[] getRealAttrArray(String att, int start, int len) {
-        Pointer val = MemoryUtil.doubleArray(len);
-        MdoResult.checkResult(model.getRealAttrArray(MemoryUtil.charArray(att), start, len, val));
-        return val.getDoubleArray(0, len);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.doubleArray(len);
+            MdoResult.checkResult(model.getRealAttrArray(scratch.internedString(att), start, len, val));
+            return val.getDoubleArray(0, len);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    void getRealAttrArray(String att, int start, int len, Pointer val) {
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.getRealAttrArray(scratch.internedString(att), start, len, val));
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    void getIntAttrArray(String att, int start, int len, Pointer val) {
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.getIntAttrArray(scratch.internedString(att), start, len, val));
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    // Get the given columns in CSC form into caller-owned buffers, returns the number of elements. Pass null
+    // buffers and size 0 to only count the elements
+    int getCols(int numCols, Pointer colIndices, Pointer bgn, Pointer indices, Pointer values, int size) {
+        Pointer realSize = MemoryUtil.intByReference();
+        MdoResult.checkResult(model.getCols(numCols, colIndices, bgn, indices, values, size, realSize));
+        return realSize.getInt(0);
+    }
+
+    // Get the given rows in CSR form into caller-owned buffers, returns the number of elements. Pass null
+    // buffers and size 0 to only count the elements
+    int getRows(int numRows, Pointer rowIndices, Pointer bgn, Pointer indices, Pointer values, int size) {
+        Pointer realSize = MemoryUtil.intByReference();
+        MdoResult.checkResult(model.getRows(numRows, rowIndices, bgn, indices, values, size, realSize));
+        return realSize.getInt(0);
     }
 
     @Override
     public void setIntAttrVars(String att, MdoVar[] vars, int[] vals) {
-        for (int i = 0; i < vars.length; i++) {
-            MdoVar var = vars[i];
-            setIntAttrIndex(att, var.getIndex(), vals[i]);
-        }
+        setIntAttrIndices(att, indicesOf(vars), vals);
     }
 
     @Override
     public int[] getIntAttrVars(String att, MdoVar[] vars) {
-        int[] vals = new int[vars.length];
-        for (int i = 0; i < vars.length; i++) {
-            MdoVar var = vars[i];
-            vals[i] = getIntAttrIndex(att, var.getIndex());
-        }
-        return vals;
+        return getIntAttrIndices(att, indicesOf(vars));
     }
 
     @Override
     public void setRealAttrVars(String att, MdoVar[] vars, double[] vals) {
-        for (int i = 0; i < vars.length; i++) {
-            MdoVar var = vars[i];
-            setRealAttrIndex(att, var.getIndex(), vals[i]);
-        }
+        setRealAttrIndices(att, indicesOf(vars), vals);
     }
 
     @Override
     public double[] getRealAttrVars(String att, MdoVar[] vars) {
-        double[] vals = new double[vars.length];
-        for (int i = 0; i < vars.length; i++) {
-            MdoVar var = vars[i];
-            vals[i] = getRealAttrIndex(att, var.getIndex());
-        }
-        return vals;
+        return getRealAttrIndices(att, indicesOf(vars));
     }
 
     @Override
     public void setIntAttrConss(String att, MdoCons[] conss, int[] vals) {
-        for (int i = 0; i < conss.length; i++) {
-            MdoCons cons = conss[i];
-            setIntAttrIndex(att, cons.getIndex(), vals[i]);
-        }
+        setIntAttrIndices(att, indicesOf(conss), vals);
     }
 
     @Override
     public int[] getIntAttrConss(String att, MdoCons[] conss) {
-        int[] vals = new int[conss.length];
-        for (int i = 0; i < conss.length; i++) {
-            MdoCons cons = conss[i];
-            vals[i] = getIntAttrIndex(att, cons.getIndex());
-        }
-        return vals;
+        return getIntAttrIndices(att, indicesOf(conss));
     }
 
     @Override
     public void setRealAttrConss(String att, MdoCons[] conss, double[] vals) {
-        for (int i = 0; i < conss.length; i++) {
-            MdoCons cons = conss[i];
-            setRealAttrIndex(att, cons.getIndex(), vals[i]);
-        }
+        setRealAttrIndices(att, indicesOf(conss), vals);
     }
 
     @Override
     public double[] getRealAttrConss(String att, MdoCons[] conss) {
-        double[] vals = new double[conss.length];
+        return getRealAttrIndices(att, indicesOf(conss));
+    }
+
+    private static int[] indicesOf(MdoVar[] vars) {
+        int[] indices = new int[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            indices[i] = vars[i].getIndex();
+        }
+        return indices;
+    }
+
+    private static int[] indicesOf(MdoCons[] conss) {
+        int[] indices = new int[conss.length];
         for (int i = 0; i < conss.length; i++) {
-            MdoCons cons = conss[i];
-            vals[i] = getRealAttrIndex(att, cons.getIndex());
+            indices[i] = conss[i].getIndex();
+        }
+        return indices;
+    }
+
+    /**
+     * Max distance between two neighbouring indices that are still read with a single array call
+     */
+    private static final int MAX_GATHER_GAP = 64;
+
+    /**
+     * Sort element positions by their index, each entry packs the index in the high 32 bits
+     * and the position in the low 32 bits. Entries with the same index keep their original order.
+     */
+    private static long[] sortByIndex(int[] indices) {
+        long[] order = new long[indices.length];
+        boolean sorted = true;
+        for (int i = 0; i < indices.length; i++) {
+            order[i] = ((long) indices[i] << 32) | i;
+            if (i > 0 && order[i] < order[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            Arrays.sort(order);
+        }
+        return order;
+    }
+
+    private static int indexOf(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private static int positionOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * End (exclusive) of the run starting at {@code bgn}, a run may skip at most {@code maxGap - 1} indices and
+     * spans at most twice its number of entries beyond {@code maxGap}, so a run never reads much more than asked
+     */
+    private static int runEnd(long[] order, int bgn, int maxGap) {
+        int first = indexOf(order[bgn]);
+        int end = bgn + 1;
+        while (end < order.length) {
+            int index = indexOf(order[end]);
+            long span = (long) index - first + 1;
+            if (index - indexOf(order[end - 1]) > maxGap || span > Math.max(maxGap, 2L * (end - bgn + 1))) {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    private int[] getIntAttrIndices(String att, int[] indices) {
+        int[] vals = new int[indices.length];
+        long[] order = sortByIndex(indices);
+        for (int bgn = 0, end; bgn < order.length; bgn = end) {
+            end = runEnd(order, bgn, MAX_GATHER_GAP);
+            int first = indexOf(order[bgn]);
+            if (end - bgn == 1) {
+                vals[positionOf(order[bgn])] = getIntAttrIndex(att, first);
+            } else {
+                int[] run = getIntAttrArray(att, first, indexOf(order[end - 1]) - first + 1);
+                for (int k = bgn; k < end; k++) {
+                    vals[positionOf(order[k])] = run[indexOf(order[k]) - first];
+                }
+            }
         }
         return vals;
     }
 
+    private double[] getRealAttrIndices(String att, int[] indices) {
+        double[] vals = new double[indices.length];
+        long[] order = sortByIndex(indices);
+        for (int bgn = 0, end; bgn < order.length; bgn = end) {
+            end = runEnd(order, bgn, MAX_GATHER_GAP);
+            int first = indexOf(order[bgn]);
+            if (end - bgn == 1) {
+                vals[positionOf(order[bgn])] = getRealAttrIndex(att, first);
+            } else {
+                double[] run = getRealAttrArray(att, first, indexOf(order[end - 1]) - first + 1);
+                for (int k = bgn; k < end; k++) {
+                    vals[positionOf(order[k])] = run[indexOf(order[k]) - first];
+                }
+            }
+        }
+        return vals;
+    }
+
+    private void setIntAttrIndices(String att, int[] indices, int[] vals) {
+        // Only gap-free runs are written as arrays, values between indices are never read back
+        long[] order = sortByIndex(indices);
+        for (int bgn = 0, end; bgn < order.length; bgn = end) {
+            end = runEnd(order, bgn, 1);
+            int first = indexOf(order[bgn]);
+            if (end - bgn == 1) {
+                setIntAttrIndex(att, first, vals[positionOf(order[bgn])]);
+            } else {
+                int[] run = new int[indexOf(order[end - 1]) - first + 1];
+                for (int k = bgn; k < end; k++) {
+                    run[indexOf(order[k]) - first] = vals[positionOf(order[k])];
+                }
+                setIntAttrArray(att, first, run.length, run);
+            }
+        }
+    }
+
+    private void setRealAttrIndices(String att, int[] indices, double[] vals) {
+        // Only gap-free runs are written as arrays, values between indices are never read back
+        long[] order = sortByIndex(indices);
+        for (int bgn = 0, end; bgn < order.length; bgn = end) {
+            end = runEnd(order, bgn, 1);
+            int first = indexOf(order[bgn]);
+            if (end - bgn == 1) {
+                setRealAttrIndex(att, first, vals[positionOf(order[bgn])]);
+            } else {
+                double[] run = new double[indexOf(order[end - 1]) - first + 1];
+                for (int k = bgn; k < end; k++) {
+                    run[indexOf(order[k]) - first] = vals[positionOf(order[k])];
+                }
+                setRealAttrArray(att, first, run.length, run);
+            }
+        }
+    }
+
     @Override
     public void setIntAttr(String att, int val) {
-        MdoResult.checkResult(model.setIntAttr(MemoryUtil.charArray(att), val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setIntAttr(scratch.internedString(att), val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public int getIntAttr(String att) {
-        Pointer val = MemoryUtil.intByReference();
-        MdoResult.checkResult(model.getIntAttr(MemoryUtil.charArray(att), val));
-        return val.getInt(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.intByReference();
+            MdoResult.checkResult(model.getIntAttr(scratch.internedString(att), val));
+            return val.getInt(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setRealAttr(String att, double val) {
-        MdoResult.checkResult(model.setRealAttr(MemoryUtil.charArray(att), val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setRealAttr(scratch.internedString(att), val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public double getRealAttr(String att) {
-        Pointer val = MemoryUtil.doubleByReference();
-        MdoResult.checkResult(model.getRealAttr(MemoryUtil.charArray(att), val));
-        return val.getDouble(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.doubleByReference();
+            MdoResult.checkResult(model.getRealAttr(scratch.internedString(att), val));
+            return val.getDouble(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setStrAttr(String att, String val) {
-        MdoResult.checkResult(model.setStrAttr(MemoryUtil.charArray(att), MemoryUtil.charArray(val)));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setStrAttr(scratch.internedString(att), scratch.charArray(val)));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public String getStrAttr(String att) {
-        Pointer buffer = new Memory(Mdo.MAX_NATIVE_STR_LEN);
-        MdoResult.checkResult(model.getStrAttr(MemoryUtil.charArray(att), Mdo.MAX_NATIVE_STR_LEN, buffer));
-        return Native.toString(buffer.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer buffer = scratch.nativeString();
+            MdoResult.checkResult(model.getStrAttr(scratch.internedString(att), Mdo.MAX_NATIVE_STR_LEN, buffer));
+            return Native.toString(buffer.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setStrParam(String par, String val) {
-        MdoResult.checkResult(model.setStrParam(MemoryUtil.charArray(par), MemoryUtil.charArray(val)));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setStrParam(scratch.internedString(par), scratch.charArray(val)));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public String getStrParam(String par) {
-        Pointer val = new Memory(Mdo.MAX_NATIVE_STR_LEN);
-        MdoResult.checkResult(model.getStrParam(MemoryUtil.charArray(par), Mdo.MAX_NATIVE_STR_LEN, val));
-        return Native.toString(val.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.nativeString();
+            MdoResult.checkResult(model.getStrParam(scratch.internedString(par), Mdo.MAX_NATIVE_STR_LEN, val));
+            return Native.toString(val.getByteArray(0, Mdo.MAX_NATIVE_STR_LEN));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setIntParam(String par, int val) {
-        MdoResult.checkResult(model.setIntParam(MemoryUtil.charArray(par), val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setIntParam(scratch.internedString(par), val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public int getIntParam(String par) {
-        Pointer val = MemoryUtil.intByReference();
-        MdoResult.checkResult(model.getIntParam(MemoryUtil.charArray(par), val));
-        return val.getInt(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.intByReference();
+            MdoResult.checkResult(model.getIntParam(scratch.internedString(par), val));
+            return val.getInt(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void setRealParam(String par, double val) {
-        MdoResult.checkResult(model.setRealParam(MemoryUtil.charArray(par), val));
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            MdoResult.checkResult(model.setRealParam(scratch.internedString(par), val));
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public double getRealParam(String par) {
-        Pointer val = MemoryUtil.doubleByReference();
-        MdoResult.checkResult(model.getRealParam(MemoryUtil.charArray(par), val));
-        return val.getDouble(0);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer val = scratch.doubleByReference();
+            MdoResult.checkResult(model.getRealParam(scratch.internedString(par), val));
+            return val.getDouble(0);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     @Override
     public void free() {
         if (!freed) {
             freed = true;
-            model.freeMdl();
+            cleanable.clean();
         }
     }
 
+    /**
+     * Release native memory of the model, same as {@link #free()}
+     */
     @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
+    public void close() {
         free();
     }
 
     @Override
     public void readProb(String filename) {
         MdoResult.checkResult(model.readProb(MemoryUtil.charArray(filename)));
+        // The file format may carry quadratic terms or sym-mat blocks
+        mayHaveQuadratic = true;
+        mayHaveSymMats = true;
         syncData(true, true);
     }
 
@@ -870,6 +1443,8 @@ public class MdoModel implements MdoProblem, MdoSolver {
                 )
         );
         if (readModel) {
+            mayHaveQuadratic = true;
+            mayHaveSymMats = true;
             syncData(true, true);
         }
     }
@@ -937,11 +1512,13 @@ public class MdoModel implements MdoProblem, MdoSolver {
     @Override
     public void setLogToConsole(boolean flag) {
         MdoResult.checkResult(model.setLogToConsole(flag ? 1 : 0));
+        logCustomized = true;
     }
 
     @Override
     public void setLogFile(String filename) {
         MdoResult.checkResult(model.setLogFile(MemoryUtil.charArray(filename)));
+        logCustomized = true;
     }
 
     @Override
@@ -952,6 +1529,9 @@ public class MdoModel implements MdoProblem, MdoSolver {
             }
         };
         MdoResult.checkResult(model.setLogCallback(callback, Pointer.NULL));
+        // The native side only holds a function pointer, the callback must stay reachable while it is registered
+        nativeLogCallback = callback;
+        logCustomized = true;
     }
 
     @Override
@@ -996,11 +1576,13 @@ public class MdoModel implements MdoProblem, MdoSolver {
     @Override
     public void addSymMat(int dim_mat) {
         MdoResult.checkResult(model.addSymMat(dim_mat, MemoryUtil.charArray("")));
+        mayHaveSymMats = true;
     }
 
     @Override
     public void addSymMat(int dim_mat, String name_mat) {
         MdoResult.checkResult(model.addSymMat(dim_mat, MemoryUtil.charArray(name_mat)));
+        mayHaveSymMats = true;
     }
 
     @Override
@@ -1029,8 +1611,14 @@ public class MdoModel implements MdoProblem, MdoSolver {
 
     @Override
     public double[] getRealAttrSymMat(String att, int mat_index, int size, int[] mat_row_indices, int[] mat_col_indices) {
-        Pointer vals = MemoryUtil.doubleArray(size);
-        MdoResult.checkResult(model.getRealAttrSymMat(MemoryUtil.charArray(att), mat_index, size, MemoryUtil.intArray(mat_row_indices), MemoryUtil.intArray(mat_col_indices), vals));
-        return vals.getDoubleArray(0, size);
+        MemoryUtil.Scratch scratch = MemoryUtil.scratch();
+        long mark = scratch.mark();
+        try {
+            Pointer vals = scratch.doubleArray(size);
+            MdoResult.checkResult(model.getRealAttrSymMat(scratch.internedString(att), mat_index, size, MemoryUtil.intArray(mat_row_indices), MemoryUtil.intArray(mat_col_indices), vals));
+            return vals.getDoubleArray(0, size);
+        } finally {
+            scratch.release(mark);
+        }
     }
 }
@@ -0,0 +1,456 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates a linear problem in plain Java arrays and loads it into a model with a single native call.
+ *
+ * Variables and constraints are referred to by the index returned when they are added. Nonzero entries can be
+ * given in any order, duplicated entries are summed up. Unnamed variables and constraints keep the names the native
+ * library gives them, if only some are named those names are set with one more native call each.
+ */
+public class MdoModelBuilder {
+    private int numVars = 0;
+    private double[] lbs = new double[16];
+    private double[] ubs = new double[16];
+    private double[] objs = new double[16];
+    private boolean[] areIntegers = new boolean[16];
+    private String[] varNames = null;
+
+    private int numConss = 0;
+    private double[] lhss = new double[16];
+    private double[] rhss = new double[16];
+    private String[] consNames = null;
+
+    private int numElements = 0;
+    private int[] rowIndices = new int[16];
+    private int[] colIndices = new int[16];
+    private double[] values = new double[16];
+
+    private double objConst = 0;
+    private boolean isMin = true;
+
+    /**
+     * Add a decision variable
+     * @param lb lower bound for this variable, set to {@code -Mdo.INFINITY} if it's lower-bound-free
+     * @param ub upper bound for this variable, set to {@code Mdo.INFINITY} if it's upper-bound-free
+     * @param obj objective coefficient for this variable
+     * @param isInteger specifying weather this variable is an integer variable
+     * @param name variable name, null for default name
+     * @return index of the new variable
+     */
+    public int addVar(double lb, double ub, double obj, boolean isInteger, String name) {
+        if (numVars == lbs.length) {
+            int capacity = grow(numVars);
+            lbs = Arrays.copyOf(lbs, capacity);
+            ubs = Arrays.copyOf(ubs, capacity);
+            objs = Arrays.copyOf(objs, capacity);
+            areIntegers = Arrays.copyOf(areIntegers, capacity);
+        }
+        lbs[numVars] = lb;
+        ubs[numVars] = ub;
+        objs[numVars] = obj;
+        areIntegers[numVars] = isInteger;
+        varNames = setName(varNames, numVars, name);
+        return numVars++;
+    }
+
+    /**
+     * Add a decision variable with its nonzero entries
+     * @param lb lower bound for this variable, set to {@code -Mdo.INFINITY} if it's lower-bound-free
+     * @param ub upper bound for this variable, set to {@code Mdo.INFINITY} if it's upper-bound-free
+     * @param obj objective coefficient for this variable
+     * @param isInteger specifying weather this variable is an integer variable
+     * @param conss indices of constraints to which this variable belongs
+     * @param coeffs coefficients of this variable in each constraint
+     * @param name variable name, null for default name
+     * @return index of the new variable
+     */
+    public int addVar(double lb, double ub, double obj, boolean isInteger, int[] conss, double[] coeffs, String name) {
+        int col = addVar(lb, ub, obj, isInteger, name);
+        for (int k = 0; k < conss.length; k++) {
+            addElement(conss[k], col, coeffs[k]);
+        }
+        return col;
+    }
+
+    /**
+     * Add a range constraint, specifies its expression must be between {@code lhs} and {@code rhs}
+     * @param lhs the lower bound of this constraint, set to {@code -Mdo.INFINITY} if it's lower-bound-free
+     * @param rhs the upper bound of this constraint, set to {@code Mdo.INFINITY} if it's upper-bound-free
+     * @param name constraint name, null for default name
+     * @return index of the new constraint
+     */
+    public int addCons(double lhs, double rhs, String name) {
+        if (numConss == lhss.length) {
+            int capacity = grow(numConss);
+            lhss = Arrays.copyOf(lhss, capacity);
+            rhss = Arrays.copyOf(rhss, capacity);
+        }
+        lhss[numConss] = lhs;
+        rhss[numConss] = rhs;
+        consNames = setName(consNames, numConss, name);
+        return numConss++;
+    }
+
+    /**
+     * Add a range constraint with its nonzero entries
+     * @param lhs the lower bound of this constraint, set to {@code -Mdo.INFINITY} if it's lower-bound-free
+     * @param rhs the upper bound of this constraint, set to {@code Mdo.INFINITY} if it's upper-bound-free
+     * @param vars indices of variables in this constraint
+     * @param coeffs coefficients of each variable
+     * @param name constraint name, null for default name
+     * @return index of the new constraint
+     */
+    public int addCons(double lhs, double rhs, int[] vars, double[] coeffs, String name) {
+        int row = addCons(lhs, rhs, name);
+        for (int k = 0; k < vars.length; k++) {
+            addElement(row, vars[k], coeffs[k]);
+        }
+        return row;
+    }
+
+    /**
+     * Add a nonzero entry to the constraint matrix, entries added more than once are summed up
+     * @param cons constraint index
+     * @param var variable index
+     * @param value the coefficient
+     */
+    public void addElement(int cons, int var, double value) {
+        if (cons < 0 || cons >= numConss || var < 0 || var >= numVars) {
+            throw new IndexOutOfBoundsException("Element (" + cons + ", " + var + ") out of range");
+        }
+        if (numElements == values.length) {
+            int capacity = grow(numElements);
+            rowIndices = Arrays.copyOf(rowIndices, capacity);
+            colIndices = Arrays.copyOf(colIndices, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        rowIndices[numElements] = cons;
+        colIndices[numElements] = var;
+        values[numElements] = value;
+        numElements++;
+    }
+
+    /**
+     * Set the objective offset
+     * @param objConst the objective offset
+     */
+    public void setObjConst(double objConst) {
+        this.objConst = objConst;
+    }
+
+    /**
+     * Set the objective to be minimized (default)
+     */
+    public void setMinObjSense() {
+        isMin = true;
+    }
+
+    /**
+     * Set the objective to be maximized
+     */
+    public void setMaxObjSense() {
+        isMin = false;
+    }
+
+    /**
+     * Change the bounds of a variable
+     * @param var variable index
+     * @param lb the new lower bound
+     * @param ub the new upper bound
+     */
+    public void setVarBounds(int var, double lb, double ub) {
+        checkVar(var);
+        lbs[var] = lb;
+        ubs[var] = ub;
+    }
+
+    /**
+     * Change the objective coefficient of a variable
+     * @param var variable index
+     * @param obj the new objective coefficient
+     */
+    public void setObj(int var, double obj) {
+        checkVar(var);
+        objs[var] = obj;
+    }
+
+    /**
+     * Change weather a variable is an integer variable
+     * @param var variable index
+     * @param isInteger weather the variable is an integer variable
+     */
+    public void setInteger(int var, boolean isInteger) {
+        checkVar(var);
+        areIntegers[var] = isInteger;
+    }
+
+    /**
+     * Change the bounds of a constraint
+     * @param cons constraint index
+     * @param lhs the new lower bound
+     * @param rhs the new upper bound
+     */
+    public void setConsBounds(int cons, double lhs, double rhs) {
+        checkCons(cons);
+        lhss[cons] = lhs;
+        rhss[cons] = rhs;
+    }
+
+    /**
+     * Get the lower bound of a variable
+     * @param var variable index
+     * @return the lower bound
+     */
+    public double getLb(int var) {
+        checkVar(var);
+        return lbs[var];
+    }
+
+    /**
+     * Get the upper bound of a variable
+     * @param var variable index
+     * @return the upper bound
+     */
+    public double getUb(int var) {
+        checkVar(var);
+        return ubs[var];
+    }
+
+    /**
+     * Get the objective coefficient of a variable
+     * @param var variable index
+     * @return the objective coefficient
+     */
+    public double getObj(int var) {
+        checkVar(var);
+        return objs[var];
+    }
+
+    /**
+     * Check weather a variable is an integer variable
+     * @param var variable index
+     * @return weather the variable is an integer variable
+     */
+    public boolean isInteger(int var) {
+        checkVar(var);
+        return areIntegers[var];
+    }
+
+    /**
+     * Get the lower bound of a constraint
+     * @param cons constraint index
+     * @return the lower bound
+     */
+    public double getLhs(int cons) {
+        checkCons(cons);
+        return lhss[cons];
+    }
+
+    /**
+     * Get the upper bound of a constraint
+     * @param cons constraint index
+     * @return the upper bound
+     */
+    public double getRhs(int cons) {
+        checkCons(cons);
+        return rhss[cons];
+    }
+
+    /**
+     * Get the objective offset
+     * @return the objective offset
+     */
+    public double getObjConst() {
+        return objConst;
+    }
+
+    private void checkCons(int cons) {
+        if (cons < 0 || cons >= numConss) {
+            throw new IndexOutOfBoundsException("Constraint " + cons + " out of range");
+        }
+    }
+
+    private void checkVar(int var) {
+        if (var < 0 || var >= numVars) {
+            throw new IndexOutOfBoundsException("Variable " + var + " out of range");
+        }
+    }
+
+    /**
+     * Get the number of variables added so far
+     * @return the number of variables
+     */
+    public int getNumVars() {
+        return numVars;
+    }
+
+    /**
+     * Get the number of constraints added so far
+     * @return the number of constraints
+     */
+    public int getNumConss() {
+        return numConss;
+    }
+
+    /**
+     * Get the number of nonzero entries added so far, duplicated entries are counted separately
+     * @return the number of nonzero entries
+     */
+    public int getNumElements() {
+        return numElements;
+    }
+
+    /**
+     * Replace the problem of {@code model} with the accumulated one, in a single native call
+     * @param model the model to load into
+     */
+    public void build(MdoModel model) {
+        int[] bgn = new int[numVars + 1];
+        int[] indices;
+        double[] vals;
+        if (isColumnOrdered()) {
+            for (int k = 0; k < numElements; k++) {
+                bgn[colIndices[k] + 1]++;
+            }
+            indices = Arrays.copyOf(rowIndices, numElements);
+            vals = Arrays.copyOf(values, numElements);
+        } else {
+            // Counting sort by row then stable counting sort by column, rows end up ordered within each column
+            int[] rowBgn = new int[numConss + 1];
+            for (int k = 0; k < numElements; k++) {
+                rowBgn[rowIndices[k] + 1]++;
+                bgn[colIndices[k] + 1]++;
+            }
+            for (int i = 0; i < numConss; i++) {
+                rowBgn[i + 1] += rowBgn[i];
+            }
+            int[] byRow = new int[numElements];
+            for (int k = 0; k < numElements; k++) {
+                byRow[rowBgn[rowIndices[k]]++] = k;
+            }
+            int[] next = new int[numVars];
+            int offset = 0;
+            for (int j = 0; j < numVars; j++) {
+                next[j] = offset;
+                offset += bgn[j + 1];
+            }
+            indices = new int[numElements];
+            vals = new double[numElements];
+            for (int k : byRow) {
+                int pos = next[colIndices[k]]++;
+                indices[pos] = rowIndices[k];
+                vals[pos] = values[k];
+            }
+        }
+        for (int j = 0; j < numVars; j++) {
+            bgn[j + 1] += bgn[j];
+        }
+        int size = dedupe(bgn, indices, vals);
+
+        boolean allVarsNamed = isComplete(varNames, numVars);
+        boolean allConssNamed = isComplete(consNames, numConss);
+        model.loadModel(numVars, numConss, bgn, Arrays.copyOf(indices, size), Arrays.copyOf(vals, size),
+                lbs, ubs, objs, areIntegers, objConst, isMin, lhss, rhss,
+                allVarsNamed ? varNames : null, allConssNamed ? consNames : null);
+        if (!allVarsNamed) {
+            setNames(model, Mdo.STR_ATTR_COL_NAME, varNames, numVars);
+        }
+        if (!allConssNamed) {
+            setNames(model, Mdo.STR_ATTR_ROW_NAME, consNames, numConss);
+        }
+    }
+
+    private boolean isColumnOrdered() {
+        for (int k = 1; k < numElements; k++) {
+            if (colIndices[k] < colIndices[k - 1]
+                    || (colIndices[k] == colIndices[k - 1] && rowIndices[k] <= rowIndices[k - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sum up entries with the same row within each column in place, returns the new number of entries
+    private static int dedupe(int[] bgn, int[] indices, double[] vals) {
+        int size = 0;
+        int start = 0;
+        for (int j = 0; j + 1 < bgn.length; j++) {
+            int end = bgn[j + 1];
+            for (int k = start; k < end; k++) {
+                if (size > bgn[j] && indices[k] == indices[size - 1]) {
+                    vals[size - 1] += vals[k];
+                } else {
+                    indices[size] = indices[k];
+                    vals[size] = vals[k];
+                    size++;
+                }
+            }
+            start = end;
+            bgn[j + 1] = size;
+        }
+        return size;
+    }
+
+    private static String[] setName(String[] names, int index, String name) {
+        if (name == null && names == null) {
+            return null;
+        }
+        if (names == null) {
+            names = new String[Math.max(16, index + 1)];
+        } else if (index >= names.length) {
+            names = Arrays.copyOf(names, Math.max(grow(names.length), index + 1));
+        }
+        names[index] = name;
+        return names;
+    }
+
+    private static boolean isComplete(String[] names, int len) {
+        if (names == null || names.length < len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (names[i] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Unnamed entries keep the native default names, so made up names cannot collide with given ones
+    private static void setNames(MdoModel model, String att, String[] names, int len) {
+        if (names == null) {
+            return;
+        }
+        for (int i = 0; i < Math.min(len, names.length); i++) {
+            if (names[i] != null) {
+                model.setStrAttrIndex(att, i, names[i]);
+            }
+        }
+    }
+
+    private static int grow(int capacity) {
+        long grown = Math.max(16, (long) capacity + (capacity >> 1));
+        if (grown > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Model builder capacity exceeded");
+        }
+        return (int) grown;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.alibaba.damo.mindopt.impl.MemoryUtil;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * 128-bit content hash of a model and the parameters which change its solution.
+ *
+ * The matrix, bounds, objective, sense, integrality and constraint sides are read in blocks with one native call
+ * per attribute and block and hashed as they arrive, so fingerprinting a model needs memory for one block only.
+ * Names do not take part, two models which only differ in names have the same fingerprint. The hash is not
+ * cryptographic, it is meant to identify repeated models, not to resist crafted collisions.
+ *
+ * Only linear and mixed-integer linear models can be fingerprinted. Quadratic terms and sym-mat blocks cannot be
+ * read back through the native API, so a model which may hold them (they were set, or the model was read from a
+ * file) is rejected rather than given a fingerprint that ignores them.
+ */
+public final class MdoModelFingerprint {
+    /** Number of variables or constraints read per native call */
+    private static final int BLOCK_SIZE = 4096;
+
+    /** Integer parameters hashed by {@link #of(MdoModel)} */
+    private static final String[] DEFAULT_INT_PARAMS = {
+            Mdo.INT_PARAM_METHOD,
+            Mdo.INT_PARAM_PRESOLVE,
+            Mdo.INT_PARAM_DUALIZATION,
+            Mdo.INT_PARAM_SPX_MAX_ITERS,
+            Mdo.INT_PARAM_IPM_MAX_ITERS,
+            Mdo.INT_PARAM_MIP_MAX_NODES,
+    };
+    /** Real parameters hashed by {@link #of(MdoModel)} */
+    private static final String[] DEFAULT_REAL_PARAMS = {
+            Mdo.REAL_PARAM_MAX_TIME,
+            Mdo.REAL_PARAM_SPX_PRIMAL_TOLERANCE,
+            Mdo.REAL_PARAM_SPX_DUAL_TOLERANCE,
+            Mdo.REAL_PARAM_IPM_PRIMAL_TOLERANCE,
+            Mdo.REAL_PARAM_IPM_DUAL_TOLERANCE,
+            Mdo.REAL_PARAM_IPM_GAP_TOLERANCE,
+            Mdo.REAL_PARAM_MIP_INTEGER_TOLERANCE,
+            Mdo.REAL_PARAM_MIP_OBJECTIVE_TOLERANCE,
+            Mdo.REAL_PARAM_MIP_GAP_ABS,
+            Mdo.REAL_PARAM_MIP_GAP_REL,
+    };
+
+    private final long hi;
+    private final long lo;
+
+    private MdoModelFingerprint(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * Fingerprint a model together with the tolerance, limit and algorithm parameters
+     * @param model the model
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the model may hold quadratic terms or sym-mat blocks
+     */
+    public static MdoModelFingerprint of(MdoModel model) {
+        return of(model, DEFAULT_INT_PARAMS, DEFAULT_REAL_PARAMS);
+    }
+
+    /**
+     * Fingerprint a model together with the given parameters
+     * @param model the model
+     * @param intParams names of the integer parameters to hash
+     * @param realParams names of the real parameters to hash
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the model may hold quadratic terms or sym-mat blocks
+     */
+    public static MdoModelFingerprint of(MdoModel model, String[] intParams, String[] realParams) {
+        if (model.mayHaveNonlinearData()) {
+            throw new IllegalArgumentException("Cannot fingerprint a model with quadratic terms or sym-mat blocks");
+        }
+        int numVars = model.getIntAttr(Mdo.INT_ATTR_NUM_VARS);
+        int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+        Hasher hasher = new Hasher();
+        hasher.add(numVars);
+        hasher.add(numConss);
+        hasher.add(model.isMinObjSense() ? 1 : 0);
+        hasher.add(model.getObjOffset());
+        for (String par : intParams) {
+            hasher.add(model.getIntParam(par));
+        }
+        for (String par : realParams) {
+            hasher.add(model.getRealParam(par));
+        }
+
+        int block = Math.max(1, Math.min(BLOCK_SIZE, Math.max(numVars, numConss)));
+        Memory colIndices = new Memory((long) block * MemoryUtil.INT_SIZE);
+        Memory bgn = new Memory((long) (block + 1) * MemoryUtil.INT_SIZE);
+        Memory ints = new Memory((long) block * MemoryUtil.INT_SIZE);
+        Memory reals = new Memory((long) block * MemoryUtil.DOUBLE_SIZE);
+        Memory indices = null;
+        Memory values = null;
+        for (int start = 0; start < numVars; start += BLOCK_SIZE) {
+            int len = Math.min(BLOCK_SIZE, numVars - start);
+            for (int k = 0; k < len; k++) {
+                colIndices.setInt((long) k * MemoryUtil.INT_SIZE, start + k);
+            }
+            int size = model.getCols(len, colIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0);
+            if (size > 0) {
+                if (indices == null || indices.size() < (long) size * MemoryUtil.INT_SIZE) {
+                    indices = new Memory((long) size * MemoryUtil.INT_SIZE);
+                    values = new Memory((long) size * MemoryUtil.DOUBLE_SIZE);
+                }
+                model.getCols(len, colIndices, bgn, indices, values, size);
+                hashInts(hasher, bgn, len + 1);
+                hashInts(hasher, indices, size);
+                hashReals(hasher, values, size);
+            } else {
+                hasher.add(0);
+            }
+            model.getRealAttrArray(Mdo.REAL_ATTR_LB, start, len, reals);
+            hashReals(hasher, reals, len);
+            model.getRealAttrArray(Mdo.REAL_ATTR_UB, start, len, reals);
+            hashReals(hasher, reals, len);
+            model.getRealAttrArray(Mdo.REAL_ATTR_OBJ, start, len, reals);
+            hashReals(hasher, reals, len);
+            model.getIntAttrArray(Mdo.INT_ATTR_IS_INTEGER, start, len, ints);
+            hashInts(hasher, ints, len);
+        }
+        for (int start = 0; start < numConss; start += BLOCK_SIZE) {
+            int len = Math.min(BLOCK_SIZE, numConss - start);
+            model.getRealAttrArray(Mdo.REAL_ATTR_LHS, start, len, reals);
+            hashReals(hasher, reals, len);
+            model.getRealAttrArray(Mdo.REAL_ATTR_RHS, start, len, reals);
+            hashReals(hasher, reals, len);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Parse a fingerprint from the form returned by {@link #toString()}
+     * @param str 32 hexadecimal digits
+     * @return the fingerprint
+     */
+    public static MdoModelFingerprint fromString(String str) {
+        if (str.length() != 32) {
+            throw new IllegalArgumentException("Bad fingerprint: " + str);
+        }
+        return new MdoModelFingerprint(Long.parseUnsignedLong(str.substring(0, 16), 16),
+                Long.parseUnsignedLong(str.substring(16), 16));
+    }
+
+    private static void hashInts(Hasher hasher, Memory memory, int len) {
+        IntBuffer buf = memory.getByteBuffer(0, (long) len * MemoryUtil.INT_SIZE).order(ByteOrder.nativeOrder()).asIntBuffer();
+        hasher.add(len);
+        for (int k = 0; k < len; k++) {
+            hasher.add(buf.get(k));
+        }
+    }
+
+    private static void hashReals(Hasher hasher, Memory memory, int len) {
+        DoubleBuffer buf = memory.getByteBuffer(0, (long) len * MemoryUtil.DOUBLE_SIZE).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        hasher.add(len);
+        for (int k = 0; k < len; k++) {
+            hasher.add(buf.get(k));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MdoModelFingerprint)) {
+            return false;
+        }
+        MdoModelFingerprint other = (MdoModelFingerprint) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (lo ^ (lo >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        String h = Long.toHexString(hi);
+        String l = Long.toHexString(lo);
+        StringBuilder sb = new StringBuilder(32);
+        for (int i = h.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        sb.append(h);
+        for (int i = l.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        return sb.append(l).toString();
+    }
+
+    /**
+     * Streaming form of the 128-bit MurmurHash3 mixing over 64-bit words
+     */
+    static class Hasher {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1 = 0x6d646f6670726e74L;
+        private long h2 = 0x6d646f6670726e74L;
+        private long pending;
+        private boolean hasPending;
+        private long length;
+
+        void add(long k) {
+            if (!hasPending) {
+                pending = k;
+                hasPending = true;
+                return;
+            }
+            mix(pending, k);
+            hasPending = false;
+        }
+
+        void add(double v) {
+            // -0.0 and 0.0 are the same coefficient
+            add(Double.doubleToLongBits(v == 0 ? 0.0 : v));
+        }
+
+        private void mix(long k1, long k2) {
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+            length += 16;
+        }
+
+        MdoModelFingerprint finish() {
+            if (hasPending) {
+                mix(pending, 0);
+                length -= 8;
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new MdoModelFingerprint(h1, h2);
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
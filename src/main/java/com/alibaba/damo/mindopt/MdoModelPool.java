@@ -0,0 +1,199 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of empty models created from one environment.
+ *
+ * A model given back to the pool is cleared by deleting all its nonzero entries, quadratic terms, constraints and
+ * variables, and all parameters are restored to the values a new model has. Sym-mat blocks and log settings cannot
+ * be cleared, a model which had sym-mats added or its log file, callback or console output changed is freed
+ * instead of being pooled again. Models are created on demand up to the pool size, {@link #acquire()} waits while
+ * all of them are borrowed.
+ */
+public class MdoModelPool extends MdoPool<MdoModel> {
+    private static final List<String> INT_PARAMS = new ArrayList<>();
+    private static final List<String> REAL_PARAMS = new ArrayList<>();
+    private static final List<String> STR_PARAMS = new ArrayList<>();
+
+    static {
+        for (Field field : Mdo.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class) {
+                continue;
+            }
+            try {
+                String name = (String) field.get(null);
+                if (field.getName().startsWith("INT_PARAM_")) {
+                    INT_PARAMS.add(name);
+                } else if (field.getName().startsWith("REAL_PARAM_")) {
+                    REAL_PARAMS.add(name);
+                } else if (field.getName().startsWith("STR_PARAM_")) {
+                    STR_PARAMS.add(name);
+                }
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private final MdoEnv env;
+    private final boolean ownsEnv;
+    // Native models created by the pool and not yet freed, counted down by their cleaner actions
+    private final AtomicInteger numNative = new AtomicInteger();
+    private final AtomicBoolean envFreed = new AtomicBoolean();
+    private volatile boolean drained = false;
+    // Parameter values of a new model, taken from the first model created
+    private volatile Defaults defaults;
+
+    private static class Defaults {
+        final List<String> intParams = new ArrayList<>();
+        final List<Integer> intValues = new ArrayList<>();
+        final List<String> realParams = new ArrayList<>();
+        final List<Double> realValues = new ArrayList<>();
+        final List<String> strParams = new ArrayList<>();
+        final List<String> strValues = new ArrayList<>();
+
+        Defaults(MdoModel model) {
+            // Parameters the native library does not know are skipped
+            for (String par : INT_PARAMS) {
+                try {
+                    intValues.add(model.getIntParam(par));
+                    intParams.add(par);
+                } catch (MdoException ignored) {
+                }
+            }
+            for (String par : REAL_PARAMS) {
+                try {
+                    realValues.add(model.getRealParam(par));
+                    realParams.add(par);
+                } catch (MdoException ignored) {
+                }
+            }
+            for (String par : STR_PARAMS) {
+                try {
+                    strValues.add(model.getStrParam(par));
+                    strParams.add(par);
+                } catch (MdoException ignored) {
+                }
+            }
+        }
+
+        void restore(MdoModel model) {
+            for (int i = 0; i < intParams.size(); i++) {
+                model.setIntParam(intParams.get(i), intValues.get(i));
+            }
+            for (int i = 0; i < realParams.size(); i++) {
+                model.setRealParam(realParams.get(i), realValues.get(i));
+            }
+            for (int i = 0; i < strParams.size(); i++) {
+                model.setStrParam(strParams.get(i), strValues.get(i));
+            }
+        }
+    }
+
+    /**
+     * Create a model pool with its own environment, which is freed when the pool is closed
+     * @param maxSize the maximum number of models
+     */
+    public MdoModelPool(int maxSize) {
+        this(new MdoEnv(), maxSize, true);
+    }
+
+    /**
+     * Create a model pool on an existing environment
+     * @param env the environment models are created from, it must outlive the pool
+     * @param maxSize the maximum number of models
+     */
+    public MdoModelPool(MdoEnv env, int maxSize) {
+        this(env, maxSize, false);
+    }
+
+    private MdoModelPool(MdoEnv env, int maxSize, boolean ownsEnv) {
+        super(maxSize);
+        this.env = env;
+        this.ownsEnv = ownsEnv;
+    }
+
+    @Override
+    MdoModel create() {
+        MdoModel model = env.createModel();
+        numNative.incrementAndGet();
+        model.setFreeListener(new Runnable() {
+            @Override
+            public void run() {
+                if (numNative.decrementAndGet() == 0) {
+                    freeEnv();
+                }
+            }
+        });
+        if (defaults == null) {
+            synchronized (this) {
+                if (defaults == null) {
+                    defaults = new Defaults(model);
+                }
+            }
+        }
+        return model;
+    }
+
+    @Override
+    void reset(MdoModel model) {
+        if (model.freed) {
+            throw new IllegalStateException("Model was freed while borrowed");
+        }
+        if (!model.isReusable()) {
+            throw new IllegalStateException("Model has sym-mats or log settings which cannot be reset");
+        }
+        model.clear();
+        defaults.restore(model);
+    }
+
+    @Override
+    void destroy(MdoModel model) {
+        model.free();
+    }
+
+    @Override
+    void drained() {
+        drained = true;
+        freeEnv();
+    }
+
+    // A leaked model counts as drained before the garbage collector frees it, the env must outlive it
+    private void freeEnv() {
+        if (ownsEnv && drained && numNative.get() == 0 && envFreed.compareAndSet(false, true)) {
+            env.free();
+        }
+    }
+
+    /**
+     * Free all idle models, borrowed models are freed when they are given back. An environment created by the pool
+     * is freed once the last model created from it is freed, right away if no model is borrowed. Models which were
+     * leaked instead of given back hold the environment until the garbage collector has freed them.
+     */
+    @Override
+    public void close() {
+        super.close();
+    }
+}
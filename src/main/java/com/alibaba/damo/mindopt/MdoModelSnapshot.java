@@ -0,0 +1,372 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.alibaba.damo.mindopt.impl.MemoryUtil;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned, columnar binary file format for a whole model.
+ *
+ * Each column of the model data is a section of the file in the native layout expected by {@code loadModel}, so
+ * saving lets the native side write straight into a memory-mapped file and loading hands the mapped sections to
+ * {@code loadModel} without parsing. Sections larger than a single mapping (2 GB) go through an off-heap copy.
+ *
+ * File layout, little-endian: a 64 byte header (magic, version, number of variables, number of constraints,
+ * number of elements, flags, objective constant, number of quadratic elements, number of sym-mat blocks, size
+ * of the names pool), followed by 8 byte aligned sections: column starts, row indices and values of the CSC
+ * matrix, lower bounds, upper bounds, objective and integrality of each variable, left and right-hand sides of
+ * each constraint, offsets of each variable and constraint name, and the pool of zero terminated names.
+ *
+ * The native API does not enumerate quadratic terms or sym-mat blocks, their counts are reserved in the header and
+ * always zero. Models which may hold them are rejected by {@link #save(MdoModel, Path)}, so a quadratic model never
+ * comes back as a linear one.
+ */
+public class MdoModelSnapshot {
+    private static final int MAGIC = 0x4D444F4D;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int FLAG_MIN_SENSE = 1;
+    // Number of column starts or row indices validated per bulk read
+    private static final int CHECK_BLOCK_SIZE = 1 << 16;
+
+    private MdoModelSnapshot() {
+    }
+
+    /**
+     * Save a model to a file, which is replaced if it exists. Only the linear part is saved, a model which may
+     * hold quadratic terms or sym-mat blocks is rejected rather than saved as its linear relaxation.
+     * @param model the model to save
+     * @param file the file to write
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the model may hold quadratic terms or sym-mat blocks
+     */
+    public static void save(MdoModel model, Path file) throws IOException {
+        checkByteOrder();
+        if (model.mayHaveNonlinearData()) {
+            throw new IllegalArgumentException("Cannot save quadratic terms or sym-mat blocks in a model snapshot");
+        }
+        int numVars = model.getIntAttr(Mdo.INT_ATTR_NUM_VARS);
+        int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+        Memory colIndices = new Memory((long) Math.max(1, numVars) * MemoryUtil.INT_SIZE);
+        for (int j = 0; j < numVars; j++) {
+            colIndices.setInt((long) j * MemoryUtil.INT_SIZE, j);
+        }
+        int numElements = numVars == 0 ? 0 : model.getCols(numVars, colIndices, Pointer.NULL, Pointer.NULL, Pointer.NULL, 0);
+
+        byte[][] names = new byte[numVars + numConss][];
+        long namesSize = 0;
+        for (int k = 0; k < names.length; k++) {
+            String name = k < numVars
+                    ? model.getStrAttrIndex(Mdo.STR_ATTR_COL_NAME, k)
+                    : model.getStrAttrIndex(Mdo.STR_ATTR_ROW_NAME, k - numVars);
+            names[k] = name.getBytes(StandardCharsets.UTF_8);
+            namesSize += names[k].length + 1;
+        }
+
+        Layout layout = new Layout(numVars, numConss, numElements, namesSize);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Region> regions = new ArrayList<>();
+            Region header = Region.map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE, regions);
+            ByteBuffer buf = header.buffer();
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, VERSION);
+            buf.putInt(8, numVars);
+            buf.putInt(12, numConss);
+            buf.putLong(16, numElements);
+            buf.putInt(24, model.isMinObjSense() ? FLAG_MIN_SENSE : 0);
+            buf.putDouble(32, model.getObjOffset());
+            buf.putLong(40, 0);
+            buf.putLong(48, 0);
+            buf.putLong(56, namesSize);
+
+            if (numVars > 0) {
+                Region bgn = layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.BGN, regions);
+                Region indices = layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.INDICES, regions);
+                Region values = layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.VALUES, regions);
+                model.getCols(numVars, colIndices, bgn.pointer, indices.pointer, values.pointer, numElements);
+                model.getRealAttrArray(Mdo.REAL_ATTR_LB, 0, numVars,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.LBS, regions).pointer);
+                model.getRealAttrArray(Mdo.REAL_ATTR_UB, 0, numVars,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.UBS, regions).pointer);
+                model.getRealAttrArray(Mdo.REAL_ATTR_OBJ, 0, numVars,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.OBJS, regions).pointer);
+                model.getIntAttrArray(Mdo.INT_ATTR_IS_INTEGER, 0, numVars,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.ARE_INTEGERS, regions).pointer);
+            }
+            if (numConss > 0) {
+                model.getRealAttrArray(Mdo.REAL_ATTR_LHS, 0, numConss,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.LHSS, regions).pointer);
+                model.getRealAttrArray(Mdo.REAL_ATTR_RHS, 0, numConss,
+                        layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.RHSS, regions).pointer);
+            }
+            if (names.length > 0) {
+                Pointer offsets = layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.NAME_OFFSETS, regions).pointer;
+                Pointer pool = layout.map(channel, FileChannel.MapMode.READ_WRITE, Layout.NAMES, regions).pointer;
+                long offset = 0;
+                for (int k = 0; k < names.length; k++) {
+                    offsets.setLong((long) k * 8, offset);
+                    pool.write(offset, names[k], 0, names[k].length);
+                    pool.setByte(offset + names[k].length, (byte) 0);
+                    offset += names[k].length + 1;
+                }
+            }
+            for (Region region : regions) {
+                region.commit(channel);
+            }
+        }
+    }
+
+    /**
+     * Load a model saved by {@link #save(MdoModel, Path)}, replacing the linear part of the problem held by the
+     * model. Snapshots never hold quadratic terms or sym-mat blocks.
+     * @param model the model to load into
+     * @param file the file to read
+     * @throws IOException if reading fails or the file is not a model snapshot
+     */
+    public static void load(MdoModel model, Path file) throws IOException {
+        checkByteOrder();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a model snapshot: " + file);
+            }
+            List<Region> regions = new ArrayList<>();
+            ByteBuffer buf = Region.map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE, regions).buffer();
+            if (buf.getInt(0) != MAGIC) {
+                throw new IOException("Not a model snapshot: " + file);
+            }
+            if (buf.getInt(4) != VERSION) {
+                throw new IOException("Unsupported model snapshot version " + buf.getInt(4) + ": " + file);
+            }
+            int numVars = buf.getInt(8);
+            int numConss = buf.getInt(12);
+            long numElements = buf.getLong(16);
+            boolean isMin = (buf.getInt(24) & FLAG_MIN_SENSE) != 0;
+            double objConst = buf.getDouble(32);
+            if (buf.getLong(40) != 0 || buf.getLong(48) != 0) {
+                throw new IOException("Quadratic terms and sym-mat blocks are not supported: " + file);
+            }
+            long namesSize = buf.getLong(56);
+            if (numVars < 0 || numConss < 0 || numElements < 0 || numElements > Integer.MAX_VALUE || namesSize < 0) {
+                throw new IOException("Corrupt model snapshot header: " + file);
+            }
+            Layout layout = new Layout(numVars, numConss, (int) numElements, namesSize);
+            if (channel.size() < layout.size) {
+                throw new IOException("Truncated model snapshot: " + file);
+            }
+
+            Pointer[] sections = new Pointer[Layout.NUM_SECTIONS];
+            for (int s = 0; s < Layout.NUM_SECTIONS; s++) {
+                sections[s] = layout.map(channel, FileChannel.MapMode.READ_ONLY, s, regions).pointer;
+            }
+            checkMatrix(sections[Layout.BGN], sections[Layout.INDICES], numVars, numConss, (int) numElements, file);
+            int numNames = numVars + numConss;
+            if (numNames > 0 && (namesSize == 0 || sections[Layout.NAMES].getByte(namesSize - 1) != 0)) {
+                throw new IOException("Corrupt model snapshot names: " + file);
+            }
+            Memory names = new Memory((long) Math.max(1, numNames) * Native.POINTER_SIZE);
+            for (int k = 0; k < numNames; k++) {
+                long offset = sections[Layout.NAME_OFFSETS].getLong((long) k * 8);
+                if (offset < 0 || offset >= namesSize) {
+                    throw new IOException("Corrupt model snapshot names: " + file);
+                }
+                names.setPointer((long) k * Native.POINTER_SIZE, sections[Layout.NAMES].share(offset));
+            }
+            model.loadModel(numVars, numConss, sections[Layout.BGN], sections[Layout.INDICES], sections[Layout.VALUES],
+                    sections[Layout.LBS], sections[Layout.UBS], sections[Layout.OBJS], sections[Layout.ARE_INTEGERS],
+                    objConst, isMin, sections[Layout.LHSS], sections[Layout.RHSS],
+                    names, names.share((long) numVars * Native.POINTER_SIZE));
+            // The mapped regions back the section pointers until here
+            regions.clear();
+        }
+    }
+
+    /**
+     * Check the column starts are monotone from 0 to the number of elements and the row indices are in range, so
+     * that a damaged file cannot make the native side read out of bounds
+     */
+    static void checkMatrix(Pointer bgn, Pointer indices, int numVars, int numConss, int numElements,
+                            Path file) throws IOException {
+        int[] block = new int[CHECK_BLOCK_SIZE];
+        if (numVars == 0) {
+            if (numElements != 0) {
+                throw new IOException("Corrupt model snapshot matrix: " + file);
+            }
+            return;
+        }
+        int prev = 0;
+        for (int start = 0; start <= numVars; start += CHECK_BLOCK_SIZE) {
+            int len = Math.min(CHECK_BLOCK_SIZE, numVars + 1 - start);
+            bgn.read((long) start * MemoryUtil.INT_SIZE, block, 0, len);
+            if (start == 0 && block[0] != 0) {
+                throw new IOException("Corrupt model snapshot matrix: " + file);
+            }
+            for (int k = 0; k < len; k++) {
+                if (block[k] < prev) {
+                    throw new IOException("Corrupt model snapshot matrix: " + file);
+                }
+                prev = block[k];
+            }
+        }
+        if (prev != numElements) {
+            throw new IOException("Corrupt model snapshot matrix: " + file);
+        }
+        for (int start = 0; start < numElements; start += CHECK_BLOCK_SIZE) {
+            int len = Math.min(CHECK_BLOCK_SIZE, numElements - start);
+            indices.read((long) start * MemoryUtil.INT_SIZE, block, 0, len);
+            for (int k = 0; k < len; k++) {
+                if (block[k] < 0 || block[k] >= numConss) {
+                    throw new IOException("Corrupt model snapshot matrix: " + file);
+                }
+            }
+        }
+    }
+
+    private static void checkByteOrder() {
+        if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            throw new UnsupportedOperationException("Model snapshots need a little-endian platform");
+        }
+    }
+
+    /**
+     * Offsets and sizes of the sections of a file
+     */
+    static class Layout {
+        static final int BGN = 0;
+        static final int INDICES = 1;
+        static final int VALUES = 2;
+        static final int LBS = 3;
+        static final int UBS = 4;
+        static final int OBJS = 5;
+        static final int ARE_INTEGERS = 6;
+        static final int LHSS = 7;
+        static final int RHSS = 8;
+        static final int NAME_OFFSETS = 9;
+        static final int NAMES = 10;
+        static final int NUM_SECTIONS = 11;
+
+        final long[] offsets = new long[NUM_SECTIONS];
+        final long[] sizes = new long[NUM_SECTIONS];
+        final long size;
+
+        Layout(int numVars, int numConss, int numElements, long namesSize) {
+            sizes[BGN] = numVars == 0 ? 0 : (long) (numVars + 1) * MemoryUtil.INT_SIZE;
+            sizes[INDICES] = (long) numElements * MemoryUtil.INT_SIZE;
+            sizes[VALUES] = (long) numElements * MemoryUtil.DOUBLE_SIZE;
+            sizes[LBS] = (long) numVars * MemoryUtil.DOUBLE_SIZE;
+            sizes[UBS] = (long) numVars * MemoryUtil.DOUBLE_SIZE;
+            sizes[OBJS] = (long) numVars * MemoryUtil.DOUBLE_SIZE;
+            sizes[ARE_INTEGERS] = (long) numVars * MemoryUtil.INT_SIZE;
+            sizes[LHSS] = (long) numConss * MemoryUtil.DOUBLE_SIZE;
+            sizes[RHSS] = (long) numConss * MemoryUtil.DOUBLE_SIZE;
+            sizes[NAME_OFFSETS] = ((long) numVars + numConss) * 8;
+            sizes[NAMES] = namesSize;
+            long offset = HEADER_SIZE;
+            for (int s = 0; s < NUM_SECTIONS; s++) {
+                offsets[s] = offset;
+                offset += (sizes[s] + 7) & ~7L;
+            }
+            // The last section is not padded
+            size = offsets[NUM_SECTIONS - 1] + sizes[NUM_SECTIONS - 1];
+        }
+
+        Region map(FileChannel channel, FileChannel.MapMode mode, int section, List<Region> regions) throws IOException {
+            return Region.map(channel, mode, offsets[section], sizes[section], regions);
+        }
+    }
+
+    /**
+     * A section of a file in native memory, mapped if it fits in one mapping and copied otherwise
+     */
+    private static class Region {
+        private static final int CHUNK_SIZE = 1 << 26;
+
+        final long offset;
+        final Pointer pointer;
+        private final MappedByteBuffer mapped;
+        private final Memory memory;
+
+        private Region(long offset, MappedByteBuffer mapped, Memory memory) {
+            this.offset = offset;
+            this.mapped = mapped;
+            this.memory = memory;
+            this.pointer = mapped != null ? Native.getDirectBufferPointer(mapped)
+                    : memory != null ? memory : MemoryUtil.EMPTY_MEMORY;
+        }
+
+        static Region map(FileChannel channel, FileChannel.MapMode mode, long offset, long size, List<Region> regions)
+                throws IOException {
+            Region region;
+            if (size == 0) {
+                region = new Region(offset, null, null);
+            } else if (size <= Integer.MAX_VALUE) {
+                region = new Region(offset, channel.map(mode, offset, size), null);
+            } else {
+                region = new Region(offset, null, new Memory(size));
+                if (mode == FileChannel.MapMode.READ_ONLY) {
+                    for (long pos = 0; pos < size; ) {
+                        ByteBuffer chunk = region.memory.getByteBuffer(pos, Math.min(CHUNK_SIZE, size - pos));
+                        while (chunk.hasRemaining()) {
+                            if (channel.read(chunk, offset + pos + chunk.position()) < 0) {
+                                throw new IOException("Unexpected end of file");
+                            }
+                        }
+                        pos += chunk.capacity();
+                    }
+                }
+            }
+            regions.add(region);
+            return region;
+        }
+
+        ByteBuffer buffer() {
+            return mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void commit(FileChannel channel) throws IOException {
+            if (mapped != null) {
+                mapped.force();
+                return;
+            }
+            if (memory == null) {
+                return;
+            }
+            long size = memory.size();
+            for (long pos = 0; pos < size; ) {
+                ByteBuffer chunk = memory.getByteBuffer(pos, Math.min(CHUNK_SIZE, size - pos));
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk, offset + pos + chunk.position());
+                }
+                pos += chunk.capacity();
+            }
+        }
+    }
+}
@@ -0,0 +1,688 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reader for problems in MPS format, fixed or free, into a {@link MdoModelBuilder}.
+ *
+ * Input is taken from a memory-mapped file or any channel or stream, for instance a decompressing stream or
+ * bytes received over the network, so no temporary file is needed. Lines are tokenized in the byte buffer,
+ * names are looked up without creating Strings and only new names are decoded once. Names must not contain
+ * spaces. Semi-continuous bounds and quadratic sections are not supported.
+ */
+public class MdoMpsReader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_TOKENS = 8;
+
+    private static final int SECTION_NONE = 0;
+    private static final int SECTION_OBJSENSE = 1;
+    private static final int SECTION_ROWS = 2;
+    private static final int SECTION_COLUMNS = 3;
+    private static final int SECTION_RHS = 4;
+    private static final int SECTION_RANGES = 5;
+    private static final int SECTION_BOUNDS = 6;
+    private static final int SECTION_END = 7;
+
+    // Values stored in the row table for rows which are not constraints
+    private static final int ROW_OBJECTIVE = -1;
+    private static final int ROW_FREE = -2;
+
+    private final int[] tokenBgn = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+
+    private MdoModelBuilder builder;
+    private NameTable rowNames;
+    private NameTable colNames;
+    private byte[] rowTypes;
+    private double[] rowRhs;
+    private double[] rowRanges;
+    private int section;
+    private boolean hasSections;
+    private boolean hasObjective;
+    private boolean integerMarker;
+    private int lastCol;
+    private long lineNumber;
+    private String probName;
+    private double number;
+
+    /**
+     * Read a problem from a file, which is memory-mapped if it fits. Files ending with {@code .gz} are decompressed.
+     * @param file the file to read
+     * @return a builder holding the problem
+     * @throws IOException if reading fails or the file is not valid MPS
+     */
+    public MdoModelBuilder read(Path file) throws IOException {
+        if (file.toString().endsWith(".gz")) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+                return read(in);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return read(channel);
+            }
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            start();
+            parse(buf, 0, buf.limit(), true);
+            return finish();
+        }
+    }
+
+    /**
+     * Read a problem from a stream, the stream is not closed
+     * @param in the stream to read
+     * @return a builder holding the problem
+     * @throws IOException if reading fails or the input is not valid MPS
+     */
+    public MdoModelBuilder read(InputStream in) throws IOException {
+        return read(Channels.newChannel(in));
+    }
+
+    /**
+     * Read a problem from a channel, the channel is not closed
+     * @param channel the channel to read
+     * @return a builder holding the problem
+     * @throws IOException if reading fails or the input is not valid MPS
+     */
+    public MdoModelBuilder read(ReadableByteChannel channel) throws IOException {
+        start();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        boolean eof = false;
+        while (!eof) {
+            eof = channel.read(buf) < 0;
+            if (!eof && buf.hasRemaining()) {
+                continue;
+            }
+            int consumed = parse(buf, 0, buf.position(), eof);
+            if (consumed == 0 && !buf.hasRemaining()) {
+                // A single line longer than the buffer
+                buf = ByteBuffer.allocate(buf.capacity() * 2).put((ByteBuffer) buf.flip());
+                continue;
+            }
+            buf.flip();
+            buf.position(consumed);
+            buf.compact();
+        }
+        return finish();
+    }
+
+    /**
+     * Get the problem name given in the NAME section of the last read
+     * @return the problem name, null if there is none
+     */
+    public String getProbName() {
+        return probName;
+    }
+
+    private void start() {
+        builder = new MdoModelBuilder();
+        rowNames = new NameTable();
+        colNames = new NameTable();
+        rowTypes = new byte[16];
+        rowRhs = new double[16];
+        rowRanges = new double[16];
+        section = SECTION_NONE;
+        hasSections = false;
+        hasObjective = false;
+        integerMarker = false;
+        lastCol = -1;
+        lineNumber = 0;
+        probName = null;
+    }
+
+    private MdoModelBuilder finish() throws IOException {
+        if (!hasSections) {
+            throw new IOException("No MPS sections found");
+        }
+        for (int i = 0; i < builder.getNumConss(); i++) {
+            double rhs = rowRhs[i];
+            double range = rowRanges[i];
+            double lhs;
+            double upper;
+            switch (rowTypes[i]) {
+                case 'E':
+                    lhs = rhs;
+                    upper = rhs;
+                    if (!Double.isNaN(range)) {
+                        if (range >= 0) {
+                            upper = rhs + range;
+                        } else {
+                            lhs = rhs + range;
+                        }
+                    }
+                    break;
+                case 'L':
+                    lhs = Double.isNaN(range) ? -Mdo.INFINITY : rhs - Math.abs(range);
+                    upper = rhs;
+                    break;
+                default:
+                    lhs = rhs;
+                    upper = Double.isNaN(range) ? Mdo.INFINITY : rhs + Math.abs(range);
+                    break;
+            }
+            builder.setConsBounds(i, lhs, upper);
+        }
+        MdoModelBuilder result = builder;
+        builder = null;
+        rowNames = null;
+        colNames = null;
+        return result;
+    }
+
+    // Parse all complete lines of [bgn, end), returns the offset after the last parsed line
+    private int parse(ByteBuffer buf, int bgn, int end, boolean eof) throws IOException {
+        int pos = bgn;
+        while (pos < end) {
+            int eol = pos;
+            while (eol < end && buf.get(eol) != '\n') {
+                eol++;
+            }
+            if (eol == end && !eof) {
+                return pos;
+            }
+            lineNumber++;
+            parseLine(buf, pos, eol);
+            pos = eol + 1;
+        }
+        return end;
+    }
+
+    private void parseLine(ByteBuffer buf, int bgn, int end) throws IOException {
+        // Comments are free text, they are skipped before splitting into fields
+        if (bgn < end && buf.get(bgn) == '*') {
+            return;
+        }
+        int count = tokenize(buf, bgn, end);
+        if (count == 0) {
+            return;
+        }
+        byte first = buf.get(bgn);
+        if (first != ' ' && first != '\t' && parseSection(buf, count)) {
+            return;
+        }
+        switch (section) {
+            case SECTION_OBJSENSE:
+                parseObjSense(buf, tokenBgn[0], tokenEnd[0]);
+                break;
+            case SECTION_ROWS:
+                parseRow(buf, count);
+                break;
+            case SECTION_COLUMNS:
+                parseColumn(buf, count);
+                break;
+            case SECTION_RHS:
+            case SECTION_RANGES:
+                parseRhsOrRange(buf, count);
+                break;
+            case SECTION_BOUNDS:
+                parseBound(buf, count);
+                break;
+            case SECTION_END:
+                break;
+            default:
+                throw error("Data outside of a section");
+        }
+    }
+
+    private boolean parseSection(ByteBuffer buf, int count) throws IOException {
+        int bgn = tokenBgn[0];
+        int end = tokenEnd[0];
+        if (equals(buf, bgn, end, "NAME")) {
+            probName = count > 1 ? string(buf, tokenBgn[1], tokenEnd[count - 1]) : null;
+        } else if (equals(buf, bgn, end, "OBJSENSE")) {
+            section = SECTION_OBJSENSE;
+            if (count > 1) {
+                parseObjSense(buf, tokenBgn[1], tokenEnd[1]);
+            }
+        } else if (equals(buf, bgn, end, "ROWS")) {
+            section = SECTION_ROWS;
+        } else if (equals(buf, bgn, end, "COLUMNS")) {
+            section = SECTION_COLUMNS;
+        } else if (equals(buf, bgn, end, "RHS")) {
+            section = SECTION_RHS;
+        } else if (equals(buf, bgn, end, "RANGES")) {
+            section = SECTION_RANGES;
+        } else if (equals(buf, bgn, end, "BOUNDS")) {
+            section = SECTION_BOUNDS;
+        } else if (equals(buf, bgn, end, "ENDATA")) {
+            section = SECTION_END;
+        } else if (equals(buf, bgn, end, "QUADOBJ") || equals(buf, bgn, end, "QMATRIX")
+                || equals(buf, bgn, end, "QSECTION") || equals(buf, bgn, end, "QCMATRIX")) {
+            throw error("Quadratic sections are not supported");
+        } else {
+            return false;
+        }
+        hasSections = true;
+        return true;
+    }
+
+    private void parseObjSense(ByteBuffer buf, int bgn, int end) throws IOException {
+        if (equals(buf, bgn, end, "MAX") || equals(buf, bgn, end, "MAXIMIZE")) {
+            builder.setMaxObjSense();
+        } else if (equals(buf, bgn, end, "MIN") || equals(buf, bgn, end, "MINIMIZE")) {
+            builder.setMinObjSense();
+        } else {
+            throw error("Unknown objective sense");
+        }
+    }
+
+    private void parseRow(ByteBuffer buf, int count) throws IOException {
+        if (count < 2 || tokenEnd[0] - tokenBgn[0] != 1) {
+            throw error("Bad row definition");
+        }
+        byte type = (byte) Character.toUpperCase((char) buf.get(tokenBgn[0]));
+        int bgn = tokenBgn[1];
+        int end = tokenEnd[1];
+        if (rowNames.find(buf, bgn, end) != NameTable.NOT_FOUND) {
+            throw error("Duplicate row");
+        }
+        if (type == 'N') {
+            rowNames.add(buf, bgn, end, hasObjective ? ROW_FREE : ROW_OBJECTIVE);
+            hasObjective = true;
+            return;
+        }
+        if (type != 'E' && type != 'L' && type != 'G') {
+            throw error("Unknown row type");
+        }
+        int row = builder.addCons(-Mdo.INFINITY, Mdo.INFINITY, string(buf, bgn, end));
+        rowNames.add(buf, bgn, end, row);
+        if (row == rowTypes.length) {
+            rowTypes = Arrays.copyOf(rowTypes, row * 2);
+            rowRhs = Arrays.copyOf(rowRhs, row * 2);
+            rowRanges = Arrays.copyOf(rowRanges, row * 2);
+        }
+        rowTypes[row] = type;
+        rowRhs[row] = 0;
+        rowRanges[row] = Double.NaN;
+    }
+
+    private void parseColumn(ByteBuffer buf, int count) throws IOException {
+        if (count >= 3 && equals(buf, tokenBgn[1], tokenEnd[1], "'MARKER'")) {
+            if (equals(buf, tokenBgn[2], tokenEnd[2], "'INTORG'")) {
+                integerMarker = true;
+            } else if (equals(buf, tokenBgn[2], tokenEnd[2], "'INTEND'")) {
+                integerMarker = false;
+            } else {
+                throw error("Unknown marker");
+            }
+            return;
+        }
+        if (count != 3 && count != 5) {
+            throw error("Bad column entry");
+        }
+        int bgn = tokenBgn[0];
+        int end = tokenEnd[0];
+        int col = lastCol >= 0 && colNames.matches(lastCol, buf, bgn, end) ? lastCol : colNames.find(buf, bgn, end);
+        if (col < 0) {
+            // Integer variables without bounds are [0, inf), same as continuous ones
+            col = builder.addVar(0, Mdo.INFINITY, 0, integerMarker, string(buf, bgn, end));
+            colNames.add(buf, bgn, end, col);
+        }
+        lastCol = col;
+        for (int k = 1; k < count; k += 2) {
+            int row = findRow(buf, k);
+            double value = parseValue(buf, k + 1);
+            if (row == ROW_OBJECTIVE) {
+                builder.setObj(col, value);
+            } else if (row != ROW_FREE) {
+                builder.addElement(row, col, value);
+            }
+        }
+    }
+
+    // RHS and RANGES lines have an optional set name followed by pairs of row and value
+    private void parseRhsOrRange(ByteBuffer buf, int count) throws IOException {
+        int k = count % 2 == 1 ? 1 : 0;
+        if (count < 2) {
+            throw error("Bad entry");
+        }
+        for (; k + 1 < count; k += 2) {
+            int row = findRow(buf, k);
+            double value = parseValue(buf, k + 1);
+            if (section == SECTION_RHS) {
+                if (row == ROW_OBJECTIVE) {
+                    builder.setObjConst(-value);
+                } else if (row != ROW_FREE) {
+                    rowRhs[row] = value;
+                }
+            } else if (row >= 0) {
+                rowRanges[row] = value;
+            }
+        }
+    }
+
+    private void parseBound(ByteBuffer buf, int count) throws IOException {
+        if (count < 2 || tokenEnd[0] - tokenBgn[0] != 2) {
+            throw error("Bad bound");
+        }
+        byte t0 = (byte) Character.toUpperCase((char) buf.get(tokenBgn[0]));
+        byte t1 = (byte) Character.toUpperCase((char) buf.get(tokenBgn[0] + 1));
+        boolean hasValue = !(t0 == 'F' && t1 == 'R' || t0 == 'M' && t1 == 'I' || t0 == 'P' && t1 == 'L' || t0 == 'B' && t1 == 'V');
+        // The bound set name is optional
+        int k = hasValue ? count - 2 : count - 1;
+        if (!hasValue && count >= 3 && colNames.find(buf, tokenBgn[count - 1], tokenEnd[count - 1]) < 0) {
+            k = count - 2;
+        }
+        if (k < 1) {
+            throw error("Bad bound");
+        }
+        int col = colNames.find(buf, tokenBgn[k], tokenEnd[k]);
+        if (col < 0) {
+            throw error("Unknown column");
+        }
+        double value = hasValue || k + 1 < count ? parseValue(buf, k + 1) : 0;
+        double lb = builder.getLb(col);
+        double ub = builder.getUb(col);
+        if (t0 == 'U' && t1 == 'P') {
+            // A negative upper bound on a variable with default lower bound makes it unbounded below
+            if (value < 0 && lb == 0) {
+                lb = -Mdo.INFINITY;
+            }
+            ub = value;
+        } else if (t0 == 'L' && t1 == 'O') {
+            lb = value;
+        } else if (t0 == 'F' && t1 == 'X') {
+            lb = value;
+            ub = value;
+        } else if (t0 == 'F' && t1 == 'R') {
+            lb = -Mdo.INFINITY;
+            ub = Mdo.INFINITY;
+        } else if (t0 == 'M' && t1 == 'I') {
+            lb = -Mdo.INFINITY;
+        } else if (t0 == 'P' && t1 == 'L') {
+            ub = Mdo.INFINITY;
+        } else if (t0 == 'B' && t1 == 'V') {
+            lb = 0;
+            ub = 1;
+            builder.setInteger(col, true);
+        } else if (t0 == 'L' && t1 == 'I') {
+            lb = value;
+            builder.setInteger(col, true);
+        } else if (t0 == 'U' && t1 == 'I') {
+            ub = value;
+            builder.setInteger(col, true);
+        } else {
+            throw error("Unsupported bound type");
+        }
+        builder.setVarBounds(col, lb, ub);
+    }
+
+    private int findRow(ByteBuffer buf, int k) throws IOException {
+        int row = rowNames.find(buf, tokenBgn[k], tokenEnd[k]);
+        if (row == NameTable.NOT_FOUND) {
+            throw error("Unknown row");
+        }
+        return row;
+    }
+
+    private double parseValue(ByteBuffer buf, int k) throws IOException {
+        if (!parseNumber(buf, tokenBgn[k], tokenEnd[k])) {
+            throw error("Bad number");
+        }
+        return number;
+    }
+
+    private int tokenize(ByteBuffer buf, int bgn, int end) throws IOException {
+        int count = 0;
+        int pos = bgn;
+        while (true) {
+            while (pos < end && isSpace(buf.get(pos))) {
+                pos++;
+            }
+            if (pos >= end) {
+                return count;
+            }
+            if (count == MAX_TOKENS) {
+                throw error("Too many fields");
+            }
+            tokenBgn[count] = pos;
+            while (pos < end && !isSpace(buf.get(pos))) {
+                pos++;
+            }
+            tokenEnd[count++] = pos;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    // Parse a decimal number spanning [bgn, end) exactly, sets number
+    private boolean parseNumber(ByteBuffer buf, int bgn, int end) {
+        int pos = bgn;
+        boolean negative = false;
+        if (pos < end && (buf.get(pos) == '-' || buf.get(pos) == '+')) {
+            negative = buf.get(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        boolean exact = true;
+        while (pos < end && buf.get(pos) >= '0' && buf.get(pos) <= '9') {
+            if (digits < 15) {
+                mantissa = mantissa * 10 + (buf.get(pos) - '0');
+                digits += mantissa > 0 ? 1 : 0;
+            } else {
+                exact = false;
+            }
+            pos++;
+            any = true;
+        }
+        if (pos < end && buf.get(pos) == '.') {
+            pos++;
+            while (pos < end && buf.get(pos) >= '0' && buf.get(pos) <= '9') {
+                if (digits < 15) {
+                    mantissa = mantissa * 10 + (buf.get(pos) - '0');
+                    digits += mantissa > 0 ? 1 : 0;
+                    scale--;
+                } else {
+                    exact = false;
+                }
+                pos++;
+                any = true;
+            }
+        }
+        if (!any) {
+            return parseSlow(buf, bgn, end);
+        }
+        if (pos < end && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+            pos++;
+            boolean expNegative = false;
+            if (pos < end && (buf.get(pos) == '-' || buf.get(pos) == '+')) {
+                expNegative = buf.get(pos) == '-';
+                pos++;
+            }
+            int exponent = 0;
+            int expBgn = pos;
+            while (pos < end && buf.get(pos) >= '0' && buf.get(pos) <= '9' && exponent < 10000) {
+                exponent = exponent * 10 + (buf.get(pos) - '0');
+                pos++;
+            }
+            if (pos == expBgn) {
+                return false;
+            }
+            scale += expNegative ? -exponent : exponent;
+        }
+        if (pos != end) {
+            return false;
+        }
+        // Up to 15 digits times an exact power of ten is correctly rounded, anything else takes the slow path
+        if (!exact || scale > 22 || scale < -22) {
+            return parseSlow(buf, bgn, end);
+        }
+        double value = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+        number = negative ? -value : value;
+        return true;
+    }
+
+    private boolean parseSlow(ByteBuffer buf, int bgn, int end) {
+        try {
+            number = Double.parseDouble(string(buf, bgn, end));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private static boolean equals(ByteBuffer buf, int bgn, int end, String word) {
+        if (end - bgn != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toUpperCase((char) buf.get(bgn + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer buf, int bgn, int end) {
+        byte[] bytes = new byte[end - bgn];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(bgn + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private IOException error(String msg) {
+        return new IOException("MPS line " + lineNumber + ": " + msg);
+    }
+
+    /**
+     * Open-addressing hash table from names, stored as bytes, to int values
+     */
+    private static class NameTable {
+        static final int NOT_FOUND = Integer.MIN_VALUE;
+
+        private byte[] pool = new byte[1024];
+        private int poolSize = 0;
+        private int[] offsets = new int[64];
+        private int[] lengths = new int[64];
+        private int[] values = new int[64];
+        private int size = 0;
+        // Entry index + 1 per slot, 0 for empty
+        private int[] slots = new int[128];
+
+        int find(ByteBuffer buf, int bgn, int end) {
+            int mask = slots.length - 1;
+            for (int slot = hash(buf, bgn, end) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entry < 0) {
+                    return NOT_FOUND;
+                }
+                if (matchesEntry(entry, buf, bgn, end)) {
+                    return values[entry];
+                }
+            }
+        }
+
+        // Check weather the entry with the given value has the name, only for values which are entry indices
+        boolean matches(int value, ByteBuffer buf, int bgn, int end) {
+            return value < size && values[value] == value && matchesEntry(value, buf, bgn, end);
+        }
+
+        void add(ByteBuffer buf, int bgn, int end, int value) {
+            int len = end - bgn;
+            if (poolSize + len > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+            }
+            for (int i = 0; i < len; i++) {
+                pool[poolSize + i] = buf.get(bgn + i);
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            offsets[size] = poolSize;
+            lengths[size] = len;
+            values[size] = value;
+            poolSize += len;
+            size++;
+            if (size * 2 > slots.length) {
+                rehash();
+            } else {
+                insert(size - 1);
+            }
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            for (int entry = 0; entry < size; entry++) {
+                insert(entry);
+            }
+        }
+
+        private void insert(int entry) {
+            int mask = slots.length - 1;
+            int h = 0x811c9dc5;
+            for (int i = offsets[entry]; i < offsets[entry] + lengths[entry]; i++) {
+                h = (h ^ pool[i]) * 0x01000193;
+            }
+            int slot = h & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+
+        private boolean matchesEntry(int entry, ByteBuffer buf, int bgn, int end) {
+            if (lengths[entry] != end - bgn) {
+                return false;
+            }
+            int offset = offsets[entry];
+            for (int i = 0; i < end - bgn; i++) {
+                if (pool[offset + i] != buf.get(bgn + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(ByteBuffer buf, int bgn, int end) {
+            int h = 0x811c9dc5;
+            for (int i = bgn; i < end; i++) {
+                h = (h ^ buf.get(i)) * 0x01000193;
+            }
+            return h;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+/**
+ * How the mindopt native library is bound, see {@link Mdo#load(String, MdoNativeBinding)}.
+ */
+public enum MdoNativeBinding {
+    /** JNA interface mapping for all native functions (default). */
+    INTERFACE,
+    /** JNA direct mapping for attribute accessors, column/row insertion and element access; interface mapping for the rest. */
+    DIRECT,
+    /**
+     * Foreign Function &amp; Memory downcalls for the same functions as {@link #DIRECT}, requires JDK 22 or later.
+     * On older runtimes a warning is logged and {@link #DIRECT} is used instead.
+     */
+    FFM
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of native objects with per-thread affinity and leak detection.
+ *
+ * A thread gets back the instance it returned last if that one is idle. Instances which were borrowed and
+ * became unreachable without being returned are counted as leaked and their slot is given back to the pool,
+ * their native memory is released by the garbage collector.
+ * @param <T> the pooled type
+ */
+abstract class MdoPool<T> implements AutoCloseable {
+    // How often a waiting thread checks for leaked instances
+    private static final long LEAK_POLL_MILLIS = 100;
+
+    private final int maxSize;
+    private final ArrayDeque<T> idle = new ArrayDeque<>();
+    private final List<WeakReference<T>> borrowed = new ArrayList<>();
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+    private final ThreadLocal<WeakReference<T>> affinity = new ThreadLocal<>();
+    private int size = 0;
+    private long numLeaked = 0;
+    private boolean closed = false;
+    private boolean drained = false;
+
+    MdoPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    abstract T create();
+
+    abstract void reset(T obj);
+
+    abstract void destroy(T obj);
+
+    /**
+     * Called once after the pool was closed and the last instance it created was destroyed or leaked
+     */
+    void drained() {
+    }
+
+    /**
+     * Borrow an instance, waiting until one is available
+     * @return the instance, which must be given back by {@code release}
+     */
+    public T acquire() {
+        try {
+            return acquire(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Borrow an instance, waiting at most the given time until one is available
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return the instance, which must be given back by {@code release}, or null on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + unit.toNanos(timeout);
+        boolean create = false;
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Pool is closed");
+                }
+                pollLeaked();
+                T obj = takeIdle();
+                if (obj != null) {
+                    borrowed.add(new WeakReference<>(obj, queue));
+                    return obj;
+                }
+                if (size < maxSize) {
+                    size++;
+                    create = true;
+                    break;
+                }
+                long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(Math.max(1, Math.min(LEAK_POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining))));
+            }
+        }
+        // Native creation happens outside the lock
+        T obj;
+        try {
+            obj = create();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                size--;
+                notifyAll();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            borrowed.add(new WeakReference<>(obj, queue));
+        }
+        return obj;
+    }
+
+    /**
+     * Give back a borrowed instance, it is reset before it can be borrowed again
+     * @param obj the instance returned by {@code acquire}
+     */
+    public void release(T obj) {
+        synchronized (this) {
+            if (!removeBorrowed(obj)) {
+                throw new IllegalArgumentException("Instance was not borrowed from this pool");
+            }
+        }
+        boolean keep = true;
+        try {
+            reset(obj);
+        } catch (RuntimeException e) {
+            keep = false;
+        }
+        boolean wasClosed;
+        synchronized (this) {
+            if (keep && !closed) {
+                idle.push(obj);
+                affinity.set(new WeakReference<>(obj));
+                notifyAll();
+                return;
+            }
+            wasClosed = closed;
+            if (!wasClosed) {
+                size--;
+                notifyAll();
+            }
+        }
+        destroy(obj);
+        if (wasClosed) {
+            // Once closed the slot is only given back after destroying, so drained() runs after the last destroy
+            synchronized (this) {
+                size--;
+            }
+            checkDrained();
+        }
+    }
+
+    /**
+     * Number of borrowed instances which were never given back
+     * @return the count of leaked instances
+     */
+    public synchronized long getNumLeaked() {
+        pollLeaked();
+        return numLeaked;
+    }
+
+    /**
+     * Number of instances currently borrowed
+     * @return the count of borrowed instances
+     */
+    public synchronized int getNumBorrowed() {
+        pollLeaked();
+        return borrowed.size();
+    }
+
+    /**
+     * Number of idle instances
+     * @return the count of idle instances
+     */
+    public synchronized int getNumIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Destroy all idle instances, borrowed ones are destroyed when they are given back
+     */
+    @Override
+    public void close() {
+        List<T> objs;
+        synchronized (this) {
+            closed = true;
+            objs = new ArrayList<>(idle);
+            idle.clear();
+            notifyAll();
+        }
+        for (T obj : objs) {
+            destroy(obj);
+        }
+        synchronized (this) {
+            size -= objs.size();
+        }
+        checkDrained();
+    }
+
+    private void checkDrained() {
+        synchronized (this) {
+            pollLeaked();
+            if (!closed || drained || size > 0) {
+                return;
+            }
+            drained = true;
+        }
+        drained();
+    }
+
+    private T takeIdle() {
+        WeakReference<T> ref = affinity.get();
+        T preferred = ref == null ? null : ref.get();
+        if (preferred != null && idle.removeFirstOccurrence(preferred)) {
+            return preferred;
+        }
+        return idle.poll();
+    }
+
+    private boolean removeBorrowed(T obj) {
+        for (Iterator<WeakReference<T>> it = borrowed.iterator(); it.hasNext(); ) {
+            WeakReference<T> ref = it.next();
+            if (ref.get() == obj) {
+                it.remove();
+                ref.clear();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void pollLeaked() {
+        Reference<? extends T> ref;
+        while ((ref = queue.poll()) != null) {
+            if (borrowed.remove(ref)) {
+                numLeaked++;
+                size--;
+            }
+        }
+    }
+}
@@ -97,6 +97,22 @@ public interface MdoProblem extends MdoAttrAccessor, MdoParamAccessor {
      */
     MdoVar[] addVars(double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers, MdoCol[] cols, String[] names);
 
+    /**
+     * Add decision variables with their nonzero entries in compressed sparse column format
+     * @param len number of variables to add
+     * @param lbs the lower bounds for variables, null for 0
+     * @param ubs the upper bounds for variables, null for {@code Mdo.INFINITY}
+     * @param objs objective coefficients for variables, null for 0
+     * @param areIntegers each element specifying weather variable is an integer variable, null for all continuous
+     * @param bgn the beginning index of each column in {@code indices} and {@code values}, it has {@code len + 1} elements
+     * @param indices the constraint index of each nonzero entry
+     * @param values the value of each nonzero entry
+     * @param names variable names, null for default names
+     * @return the newly created variable objects
+     */
+    MdoVar[] addVars(int len, double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers,
+                     int[] bgn, int[] indices, double[] values, String[] names);
+
 
     /**
      * Add a single linear constraint
@@ -268,13 +284,38 @@ public interface MdoProblem extends MdoAttrAccessor, MdoParamAccessor {
     MdoCons[] getConss();
 
     /**
-     * Remove variables from model
+     * Replace the whole problem in a single native call, the constraint matrix is given in compressed sparse column format.
+     * Variable and constraint objects obtained before are no longer valid.
+     * @param numVars number of variables
+     * @param numConss number of constraints
+     * @param bgn the beginning index of each column in {@code indices} and {@code values}, it has {@code numVars + 1} elements
+     * @param indices the constraint index of each nonzero entry
+     * @param values the value of each nonzero entry
+     * @param lbs the lower bounds for variables, null for 0
+     * @param ubs the upper bounds for variables, null for {@code Mdo.INFINITY}
+     * @param objs objective coefficients for variables, null for 0
+     * @param areIntegers each element specifying weather variable is an integer variable, null for all continuous
+     * @param objConst the objective offset
+     * @param isMin weather the objective is to be minimized
+     * @param lhss the lower bounds of constraints, null for {@code -Mdo.INFINITY}
+     * @param rhss the upper bounds of constraints, null for {@code Mdo.INFINITY}
+     * @param varNames variable names, null for default names
+     * @param consNames constraint names, null for default names
+     */
+    void loadModel(int numVars, int numConss, int[] bgn, int[] indices, double[] values,
+                   double[] lbs, double[] ubs, double[] objs, boolean[] areIntegers, double objConst, boolean isMin,
+                   double[] lhss, double[] rhss, String[] varNames, String[] consNames);
+
+    /**
+     * Remove variables from model. Remaining variable objects are updated to their new index,
+     * removed ones get index -1.
      * @param vars variable objects to be removed
      */
     void deleteVars(MdoVar[] vars);
 
     /**
-     * Remove constraints from model
+     * Remove constraints from model. Remaining constraint objects are updated to their new index,
+     * removed ones get index -1.
      * @param conss constraint objects to be removed
      */
     void deleteConss(MdoCons[] conss);
@@ -293,6 +334,32 @@ public interface MdoProblem extends MdoAttrAccessor, MdoParamAccessor {
      */
     MdoExprLinear getExprLinear(MdoCons cons);
 
+    /**
+     * Get the given columns in compressed sparse column form, with two native calls
+     * @param indices indices of the variables
+     * @return the columns, entry indices are constraint indices
+     */
+    MdoSparseMatrix getColsCSC(int[] indices);
+
+    /**
+     * Get all columns in compressed sparse column form, with a single native call
+     * @return the columns, entry indices are constraint indices
+     */
+    MdoSparseMatrix getColsCSC();
+
+    /**
+     * Get the given rows in compressed sparse row form, with two native calls
+     * @param indices indices of the constraints
+     * @return the rows, entry indices are variable indices
+     */
+    MdoSparseMatrix getRowsCSR(int[] indices);
+
+    /**
+     * Get all rows in compressed sparse row form, with a single native call
+     * @return the rows, entry indices are variable indices
+     */
+    MdoSparseMatrix getRowsCSR();
+
     /**
      * Check weather objective function has a minimization sense
      * @return A boolean flag that specifies if the objective function has a minimization sense.
@@ -0,0 +1,451 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+/**
+ * Log callback which turns solver progress lines into typed events.
+ *
+ * The phase is taken from the banner printed when the simplex, interior point or MIP solver starts. Progress
+ * tables are recognized by their header line, whose column titles determine which value of the following rows
+ * is the iteration, primal or dual objective, gap, time or node count. Lines are scanned in place without
+ * regular expressions, and one event object is reused for every row, so listeners must copy what they keep.
+ */
+public class MdoProgressParser implements MdoModel.LogCallback {
+    /**
+     * Solver phase a progress row belongs to
+     */
+    public enum Phase {
+        UNKNOWN,
+        SIMPLEX,
+        IPM,
+        MIP
+    }
+
+    /**
+     * Progress listener
+     */
+    public interface Listener {
+        /**
+         * Called on the logging thread for every progress row
+         * @param event the parsed row, reused for the next row
+         */
+        void onProgress(Event event);
+    }
+
+    /**
+     * One progress row, values not present in the row are NaN or -1
+     */
+    public static class Event {
+        private Phase phase = Phase.UNKNOWN;
+        private long iteration;
+        private double primalObj;
+        private double dualObj;
+        private double gap;
+        private double time;
+        private long nodes;
+
+        void clear(Phase phase) {
+            this.phase = phase;
+            iteration = -1;
+            primalObj = Double.NaN;
+            dualObj = Double.NaN;
+            gap = Double.NaN;
+            time = Double.NaN;
+            nodes = -1;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public long getIteration() {
+            return iteration;
+        }
+
+        public double getPrimalObj() {
+            return primalObj;
+        }
+
+        public double getDualObj() {
+            return dualObj;
+        }
+
+        /**
+         * Get the gap as printed, relative gaps printed with a percent sign are divided by 100
+         * @return the gap
+         */
+        public double getGap() {
+            return gap;
+        }
+
+        /**
+         * Get the elapsed time
+         * @return the elapsed time, in seconds
+         */
+        public double getTime() {
+            return time;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            return phase + " iter=" + iteration + " primal=" + primalObj + " dual=" + dualObj
+                    + " gap=" + gap + " time=" + time + " nodes=" + nodes;
+        }
+    }
+
+    private static final int COL_OTHER = 0;
+    private static final int COL_ITERATION = 1;
+    private static final int COL_PRIMAL = 2;
+    private static final int COL_DUAL = 3;
+    private static final int COL_GAP = 4;
+    private static final int COL_TIME = 5;
+    private static final int COL_NODES = 6;
+    private static final int MAX_COLUMNS = 32;
+
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final Listener listener;
+    private final MdoModel.LogCallback next;
+    private final Event event = new Event();
+    private final int[] columns = new int[MAX_COLUMNS];
+    private final int[] headerColumns = new int[MAX_COLUMNS];
+    private int numColumns = 0;
+    private Phase phase = Phase.UNKNOWN;
+    // Scratch for number parsing, avoids returning two values
+    private double number;
+    private int numberEnd;
+
+    /**
+     * Create a parser
+     * @param listener receives the progress events
+     */
+    public MdoProgressParser(Listener listener) {
+        this(listener, null);
+    }
+
+    /**
+     * Create a parser which also forwards every message
+     * @param listener receives the progress events
+     * @param next callback receiving all messages unchanged, may be null
+     */
+    public MdoProgressParser(Listener listener, MdoModel.LogCallback next) {
+        this.listener = listener;
+        this.next = next;
+    }
+
+    @Override
+    public void log(String msg) {
+        if (msg == null) {
+            msg = "";
+        }
+        int bgn = 0;
+        int len = msg.length();
+        while (bgn < len) {
+            int end = msg.indexOf('\n', bgn);
+            if (end < 0) {
+                end = len;
+            }
+            parseLine(msg, bgn, end);
+            bgn = end + 1;
+        }
+        if (next != null) {
+            next.log(msg);
+        }
+    }
+
+    private void parseLine(String line, int bgn, int end) {
+        bgn = skipSpaces(line, bgn, end);
+        if (bgn >= end) {
+            return;
+        }
+        char c = line.charAt(bgn);
+        if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == '*' || c == 'H') {
+            if (numColumns > 0 && parseRow(line, bgn, end)) {
+                listener.onProgress(event);
+                return;
+            }
+        }
+        Phase banner = banner(line, bgn, end);
+        if (banner != null) {
+            phase = banner;
+            numColumns = 0;
+            return;
+        }
+        parseHeader(line, bgn, end);
+    }
+
+    private static Phase banner(String line, int bgn, int end) {
+        if (contains(line, bgn, end, "simplex")) {
+            return Phase.SIMPLEX;
+        }
+        if (contains(line, bgn, end, "interior point") || contains(line, bgn, end, "barrier")) {
+            return Phase.IPM;
+        }
+        if (contains(line, bgn, end, "branch-and-") || contains(line, bgn, end, "mixed integer")) {
+            return Phase.MIP;
+        }
+        return null;
+    }
+
+    // A header is a line of titles with at least an iteration or node column and one value column
+    private void parseHeader(String line, int bgn, int end) {
+        int count = 0;
+        int previous = COL_OTHER;
+        boolean hasKey = false;
+        boolean hasValue = false;
+        int pos = bgn;
+        while ((pos = skipSpaces(line, pos, end)) < end) {
+            int tokenEnd = tokenEnd(line, pos, end);
+            int column = classify(line, pos, tokenEnd);
+            char c = line.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                return;
+            }
+            // "Obj", "Inf" and units continue the previous title, e.g. "Primal Obj", "Dual Inf." or "Time (s)"
+            boolean continuation = (previous == COL_PRIMAL || previous == COL_DUAL)
+                    && (startsWithIgnoreCase(line, pos, tokenEnd, "obj") || startsWithIgnoreCase(line, pos, tokenEnd, "inf"))
+                    || c == '(' || c == '[';
+            if (continuation && startsWithIgnoreCase(line, pos, tokenEnd, "inf")) {
+                headerColumns[count - 1] = COL_OTHER;
+                previous = COL_OTHER;
+            }
+            if (!continuation) {
+                if (count == MAX_COLUMNS) {
+                    return;
+                }
+                if (column == COL_OTHER && startsWithIgnoreCase(line, pos, tokenEnd, "obj")) {
+                    column = COL_PRIMAL;
+                }
+                headerColumns[count++] = column;
+                hasKey |= column == COL_ITERATION || column == COL_NODES;
+                hasValue |= column == COL_PRIMAL || column == COL_DUAL || column == COL_GAP || column == COL_TIME;
+                previous = column;
+            }
+            pos = tokenEnd;
+        }
+        if (hasKey && hasValue) {
+            System.arraycopy(headerColumns, 0, columns, 0, count);
+            numColumns = count;
+        }
+    }
+
+    private static int classify(String line, int bgn, int end) {
+        // Infeasibility columns such as "PrimalInf" or "IntInf"
+        if (contains(line, bgn, end, "inf")) {
+            return COL_OTHER;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "iter")) {
+            return COL_ITERATION;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "dual") || startsWithIgnoreCase(line, bgn, end, "dobj")
+                || contains(line, bgn, end, "bound")) {
+            return COL_DUAL;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "primal") || startsWithIgnoreCase(line, bgn, end, "pobj")
+                || startsWithIgnoreCase(line, bgn, end, "incumbent") || startsWithIgnoreCase(line, bgn, end, "best")) {
+            return COL_PRIMAL;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "gap")) {
+            return COL_GAP;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "time") || startsWithIgnoreCase(line, bgn, end, "elapsed")) {
+            return COL_TIME;
+        }
+        if (startsWithIgnoreCase(line, bgn, end, "node")) {
+            return COL_NODES;
+        }
+        return COL_OTHER;
+    }
+
+    // Fill the event from a row with one numeric value per header column
+    private boolean parseRow(String line, int bgn, int end) {
+        event.clear(phase);
+        int pos = bgn;
+        // Heuristic markers such as '*' or 'H' in front of MIP rows
+        char c = line.charAt(pos);
+        if (c == '*' || c == 'H') {
+            pos++;
+        }
+        for (int i = 0; i < numColumns; i++) {
+            pos = skipSpaces(line, pos, end);
+            if (pos >= end) {
+                return false;
+            }
+            int tokenEnd = tokenEnd(line, pos, end);
+            if (!parseNumber(line, pos, tokenEnd)) {
+                // A dash stands for a value not known yet, e.g. the gap before the first incumbent
+                if (columns[i] != COL_OTHER && !isDash(line, pos, tokenEnd)) {
+                    return false;
+                }
+                pos = tokenEnd;
+                continue;
+            }
+            double value = number;
+            char unit = numberEnd < tokenEnd ? line.charAt(numberEnd) : ' ';
+            switch (columns[i]) {
+                case COL_ITERATION:
+                    event.iteration = (long) value;
+                    break;
+                case COL_PRIMAL:
+                    event.primalObj = value;
+                    break;
+                case COL_DUAL:
+                    event.dualObj = value;
+                    break;
+                case COL_GAP:
+                    event.gap = unit == '%' ? value / 100 : value;
+                    break;
+                case COL_TIME:
+                    event.time = value;
+                    break;
+                case COL_NODES:
+                    event.nodes = (long) value;
+                    break;
+                default:
+                    break;
+            }
+            pos = tokenEnd;
+        }
+        return skipSpaces(line, pos, end) >= end;
+    }
+
+    // Parse a decimal number at the start of [bgn, end), sets number and numberEnd
+    private boolean parseNumber(String s, int bgn, int end) {
+        int pos = bgn;
+        boolean negative = false;
+        if (pos < end && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+            negative = s.charAt(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        while (pos < end && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+                digits += mantissa > 0 ? 1 : 0;
+            } else {
+                scale++;
+            }
+            pos++;
+            any = true;
+        }
+        if (pos < end && s.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (s.charAt(pos) - '0');
+                    digits += mantissa > 0 ? 1 : 0;
+                    scale--;
+                }
+                pos++;
+                any = true;
+            }
+        }
+        if (!any) {
+            if (startsWithIgnoreCase(s, pos, end, "inf")) {
+                number = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            } else if (startsWithIgnoreCase(s, pos, end, "nan")) {
+                number = Double.NaN;
+            } else {
+                return false;
+            }
+            numberEnd = end;
+            return true;
+        }
+        if (pos < end && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+            int exp = pos + 1;
+            boolean expNegative = false;
+            if (exp < end && (s.charAt(exp) == '-' || s.charAt(exp) == '+')) {
+                expNegative = s.charAt(exp) == '-';
+                exp++;
+            }
+            int exponent = 0;
+            int expDigits = exp;
+            while (exp < end && s.charAt(exp) >= '0' && s.charAt(exp) <= '9' && exponent < 10000) {
+                exponent = exponent * 10 + (s.charAt(exp) - '0');
+                exp++;
+            }
+            if (exp > expDigits) {
+                scale += expNegative ? -exponent : exponent;
+                pos = exp;
+            }
+        }
+        double value;
+        if (scale == 0) {
+            value = mantissa;
+        } else if (scale > 0 && scale < POW10.length) {
+            value = mantissa * POW10[scale];
+        } else if (scale < 0 && -scale < POW10.length) {
+            value = mantissa / POW10[-scale];
+        } else {
+            // Rare, take the exact but slower path
+            value = Double.parseDouble(s.substring(negative || s.charAt(bgn) == '+' ? bgn + 1 : bgn, pos));
+        }
+        number = negative ? -value : value;
+        numberEnd = pos;
+        return true;
+    }
+
+    private static boolean isDash(String s, int bgn, int end) {
+        for (int i = bgn; i < end; i++) {
+            if (s.charAt(i) != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(String s, int pos, int end) {
+        while (pos < end && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t' || s.charAt(pos) == '\r' || s.charAt(pos) == '|')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(String s, int pos, int end) {
+        while (pos < end && s.charAt(pos) != ' ' && s.charAt(pos) != '\t' && s.charAt(pos) != '\r' && s.charAt(pos) != '|') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean startsWithIgnoreCase(String s, int bgn, int end, String prefix) {
+        return end - bgn >= prefix.length() && s.regionMatches(true, bgn, prefix, 0, prefix.length());
+    }
+
+    private static boolean contains(String s, int bgn, int end, String word) {
+        for (int i = bgn; i + word.length() <= end; i++) {
+            if (s.regionMatches(true, i, word, 0, word.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,440 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Cache of solve outcomes keyed by {@link MdoModelFingerprint}, bounded by the estimated size of the outcomes.
+ *
+ * Only outcomes with a proven status (optimal, infeasible, unbounded, infeasible or unbounded) are cached, other
+ * outcomes depend on limits and timing. Models with quadratic terms or sym-mat blocks bypass the cache, see
+ * {@link MdoModelFingerprint}. With a disk directory, outcomes are also written through to one file per
+ * fingerprint, a miss in memory is looked up on disk, and files are removed least recently used first once the disk
+ * size bound is reached. Files left by an earlier process are picked up, so the disk tier survives restarts.
+ *
+ * All methods are thread safe. Files are read, written and deleted without holding the cache lock, a file removed
+ * under a concurrent reader is a miss.
+ */
+public class MdoSolutionCache {
+    private static final int MAGIC = 0x4D444F43;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".mdosol";
+
+    /**
+     * Order in which entries are evicted from memory
+     */
+    public enum Policy {
+        /** Evict the least recently used entry */
+        LRU,
+        /** Evict the least frequently used entry, the least recently used one among equals */
+        LFU
+    }
+
+    private final long maxBytes;
+    private final Map<MdoModelFingerprint, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> order;
+    private final Path diskDir;
+    private final long maxDiskBytes;
+    // Files by fingerprint, least recently used first
+    private final LinkedHashMap<MdoModelFingerprint, DiskEntry> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long diskBytes = 0;
+    private long clock = 0;
+    private long numHits = 0;
+    private long numDiskHits = 0;
+    private long numMisses = 0;
+
+    /**
+     * Create an in-memory cache
+     * @param maxBytes bound of the estimated size of the cached outcomes
+     * @param policy the eviction policy
+     */
+    public MdoSolutionCache(long maxBytes, Policy policy) {
+        this(maxBytes, policy, null, 0);
+    }
+
+    /**
+     * Create a cache with a disk tier
+     * @param maxBytes bound of the estimated size of the outcomes cached in memory
+     * @param policy the eviction policy in memory
+     * @param diskDir directory for the disk tier, created if missing, null for none
+     * @param maxDiskBytes bound of the size of the files in the disk tier
+     * @throws UncheckedIOException if the directory cannot be created or listed
+     */
+    public MdoSolutionCache(long maxBytes, Policy policy, Path diskDir, long maxDiskBytes) {
+        this.maxBytes = maxBytes;
+        this.order = new TreeSet<>(policy == Policy.LFU ? LFU_ORDER : LRU_ORDER);
+        this.diskDir = diskDir;
+        this.maxDiskBytes = maxDiskBytes;
+        if (diskDir != null) {
+            try {
+                Files.createDirectories(diskDir);
+                scanDisk();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Solve a model unless an outcome for an identical model is cached.
+     *
+     * On a hit the model itself is not solved, the outcome is the only source of the solution. Models which may
+     * hold quadratic terms or sym-mat blocks cannot be fingerprinted, they are always solved and never cached.
+     * @param model the model to solve
+     * @return the cached or new outcome
+     */
+    public MdoSolveOutcome solve(MdoModel model) {
+        if (model.mayHaveNonlinearData()) {
+            model.solveProb();
+            return MdoSolveOutcome.capture(model);
+        }
+        MdoModelFingerprint fingerprint = MdoModelFingerprint.of(model);
+        MdoSolveOutcome outcome = get(fingerprint);
+        if (outcome != null) {
+            return outcome;
+        }
+        model.solveProb();
+        outcome = MdoSolveOutcome.capture(model);
+        put(fingerprint, outcome);
+        return outcome;
+    }
+
+    /**
+     * Look up an outcome, in memory first and on disk then
+     * @param fingerprint fingerprint of the model
+     * @return the outcome, null if none is cached
+     */
+    public MdoSolveOutcome get(MdoModelFingerprint fingerprint) {
+        DiskEntry diskEntry;
+        synchronized (this) {
+            Entry entry = entries.get(fingerprint);
+            if (entry != null) {
+                order.remove(entry);
+                entry.count++;
+                entry.tick = ++clock;
+                order.add(entry);
+                numHits++;
+                return entry.outcome;
+            }
+            diskEntry = diskEntries.get(fingerprint);
+            if (diskEntry == null) {
+                numMisses++;
+                return null;
+            }
+        }
+        MdoSolveOutcome outcome = readDisk(fingerprint);
+        synchronized (this) {
+            if (outcome == null) {
+                // Only forget the file read here, a concurrent put may have replaced it
+                if (diskEntries.get(fingerprint) == diskEntry) {
+                    diskEntries.remove(fingerprint);
+                    diskBytes -= diskEntry.size;
+                }
+                numMisses++;
+                return null;
+            }
+            numDiskHits++;
+            putMemory(fingerprint, outcome);
+            return outcome;
+        }
+    }
+
+    /**
+     * Cache an outcome, outcomes without a proven status are ignored
+     * @param fingerprint fingerprint of the model
+     * @param outcome the outcome of solving the model
+     */
+    public void put(MdoModelFingerprint fingerprint, MdoSolveOutcome outcome) {
+        if (!isCacheable(outcome.getStatus())) {
+            return;
+        }
+        synchronized (this) {
+            putMemory(fingerprint, outcome);
+        }
+        if (diskDir == null) {
+            return;
+        }
+        long size = writeDisk(fingerprint, outcome);
+        if (size < 0) {
+            return;
+        }
+        List<MdoModelFingerprint> victims;
+        synchronized (this) {
+            DiskEntry old = diskEntries.put(fingerprint, new DiskEntry(size));
+            diskBytes += size - (old == null ? 0 : old.size);
+            victims = trimDisk();
+        }
+        deleteDisk(victims);
+    }
+
+    /**
+     * Remove all entries from memory and disk
+     */
+    public void clear() {
+        List<MdoModelFingerprint> victims;
+        synchronized (this) {
+            entries.clear();
+            order.clear();
+            bytes = 0;
+            victims = new ArrayList<>(diskEntries.keySet());
+            diskEntries.clear();
+            diskBytes = 0;
+        }
+        deleteDisk(victims);
+    }
+
+    /**
+     * Get the number of lookups answered from memory
+     * @return the number of memory hits
+     */
+    public synchronized long getNumHits() {
+        return numHits;
+    }
+
+    /**
+     * Get the number of lookups answered from disk
+     * @return the number of disk hits
+     */
+    public synchronized long getNumDiskHits() {
+        return numDiskHits;
+    }
+
+    /**
+     * Get the number of lookups which found nothing
+     * @return the number of misses
+     */
+    public synchronized long getNumMisses() {
+        return numMisses;
+    }
+
+    /**
+     * Get the estimated size of the outcomes in memory
+     * @return the size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the size of the files in the disk tier
+     * @return the size in bytes
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    private static boolean isCacheable(MdoStatus status) {
+        return status == MdoStatus.MDO_OPTIMAL || status == MdoStatus.MDO_INFEASIBLE
+                || status == MdoStatus.MDO_UNBOUNDED || status == MdoStatus.MDO_INF_OR_UBD;
+    }
+
+    private void putMemory(MdoModelFingerprint fingerprint, MdoSolveOutcome outcome) {
+        Entry old = entries.remove(fingerprint);
+        if (old != null) {
+            order.remove(old);
+            bytes -= old.size;
+        }
+        Entry entry = new Entry(fingerprint, outcome, ++clock);
+        if (entry.size > maxBytes) {
+            return;
+        }
+        if (old != null) {
+            entry.count = old.count + 1;
+        }
+        entries.put(fingerprint, entry);
+        order.add(entry);
+        bytes += entry.size;
+        while (bytes > maxBytes) {
+            Entry victim = order.pollFirst();
+            entries.remove(victim.fingerprint);
+            bytes -= victim.size;
+        }
+    }
+
+    private void scanDisk() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDir, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        final Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        Collections.sort(files, new Comparator<Path>() {
+            @Override
+            public int compare(Path a, Path b) {
+                return Long.compare(modified.get(a), modified.get(b));
+            }
+        });
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            MdoModelFingerprint fingerprint;
+            try {
+                fingerprint = MdoModelFingerprint.fromString(name.substring(0, name.length() - SUFFIX.length()));
+            } catch (IllegalArgumentException e) {
+                // Not written by this cache
+                continue;
+            }
+            long size = Files.size(file);
+            diskEntries.put(fingerprint, new DiskEntry(size));
+            diskBytes += size;
+        }
+        deleteDisk(trimDisk());
+    }
+
+    private MdoSolveOutcome readDisk(MdoModelFingerprint fingerprint) {
+        Path file = file(fingerprint);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long size = Files.size(file);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a cached outcome");
+            }
+            return MdoSolveOutcome.readFrom(in, size - 8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // A damaged or undecodable file is a miss
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    // Returns the size of the written file, -1 if it could not be written
+    private long writeDisk(MdoModelFingerprint fingerprint, MdoSolveOutcome outcome) {
+        Path tmp = null;
+        try {
+            // Unique per write, concurrent writers of one fingerprint never share a temporary file
+            tmp = Files.createTempFile(diskDir, fingerprint.toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                outcome.writeTo(out);
+            }
+            long size = Files.size(tmp);
+            // Readers never see a partially written file
+            Path file = file(fingerprint);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return size;
+        } catch (IOException e) {
+            // The disk tier is best effort, the outcome stays cached in memory
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Removes the least recently used files from the bookkeeping until the bound holds, returns them for deletion
+    private List<MdoModelFingerprint> trimDisk() {
+        List<MdoModelFingerprint> victims = new ArrayList<>();
+        Iterator<Map.Entry<MdoModelFingerprint, DiskEntry>> it = diskEntries.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && it.hasNext()) {
+            Map.Entry<MdoModelFingerprint, DiskEntry> entry = it.next();
+            diskBytes -= entry.getValue().size;
+            it.remove();
+            victims.add(entry.getKey());
+        }
+        return victims;
+    }
+
+    private void deleteDisk(List<MdoModelFingerprint> fingerprints) {
+        for (MdoModelFingerprint fingerprint : fingerprints) {
+            try {
+                Files.deleteIfExists(file(fingerprint));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Path file(MdoModelFingerprint fingerprint) {
+        return diskDir.resolve(fingerprint + SUFFIX);
+    }
+
+    private static final Comparator<Entry> LRU_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return Long.compare(a.tick, b.tick);
+        }
+    };
+
+    private static final Comparator<Entry> LFU_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            int c = Long.compare(a.count, b.count);
+            return c != 0 ? c : Long.compare(a.tick, b.tick);
+        }
+    };
+
+    // Identity tells a file apart from one written later for the same fingerprint
+    private static class DiskEntry {
+        final long size;
+
+        DiskEntry(long size) {
+            this.size = size;
+        }
+    }
+
+    private static class Entry {
+        final MdoModelFingerprint fingerprint;
+        final MdoSolveOutcome outcome;
+        final long size;
+        long count = 1;
+        // Unique per entry, so no two entries compare equal
+        long tick;
+
+        Entry(MdoModelFingerprint fingerprint, MdoSolveOutcome outcome, long tick) {
+            this.fingerprint = fingerprint;
+            this.outcome = outcome;
+            this.size = outcome.getSizeEstimate();
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.alibaba.damo.mindopt.impl.MemoryUtil;
+import com.sun.jna.Memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Primal solution, reduced costs, dual solution and activities of a solved model in one off-heap region.
+ *
+ * Each attribute is read with a single native call straight into its section of the region, values are exposed
+ * as {@code DoubleBuffer} views without copying. A snapshot can be dumped to a file which {@link #map(Path)}
+ * maps back without reading it.
+ *
+ * File layout, little-endian: a 32 byte header (magic, version, number of variables, number of constraints,
+ * flags), followed by the primal solution and reduced costs of each variable, then the dual solution and
+ * activity of each constraint, as 8 byte doubles.
+ */
+public class MdoSolutionSnapshot {
+    private static final int MAGIC = 0x4D444F53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FLAG_HAS_DUALS = 1;
+
+    private final int numVars;
+    private final int numConss;
+    private final boolean hasDuals;
+    // Keeps the native region alive for the views, null when mapped from a file
+    private final Memory memory;
+    private final ByteBuffer data;
+
+    private MdoSolutionSnapshot(int numVars, int numConss, boolean hasDuals, Memory memory, ByteBuffer data) {
+        this.numVars = numVars;
+        this.numConss = numConss;
+        this.hasDuals = hasDuals;
+        this.memory = memory;
+        this.data = data;
+    }
+
+    /**
+     * Capture the solution of a solved model
+     * @param model a model which has a solution
+     * @return the snapshot
+     */
+    public static MdoSolutionSnapshot capture(MdoModel model) {
+        int numVars = model.getIntAttr(Mdo.INT_ATTR_NUM_VARS);
+        int numConss = model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS);
+        long size = 2L * MemoryUtil.DOUBLE_SIZE * ((long) numVars + numConss);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Solution too large for a snapshot: " + size + " bytes");
+        }
+        Memory memory = new Memory(Math.max(1, size));
+        long varBytes = (long) MemoryUtil.DOUBLE_SIZE * numVars;
+        long consBytes = (long) MemoryUtil.DOUBLE_SIZE * numConss;
+        if (numVars > 0) {
+            model.getRealAttrArray(Mdo.REAL_ATTR_PRIMAL_SOLUTION, 0, numVars, memory.share(0));
+        }
+        if (numConss > 0) {
+            model.getRealAttrArray(Mdo.REAL_ATTR_ACTIVITY, 0, numConss, memory.share(2 * varBytes + consBytes));
+        }
+        boolean hasDuals = true;
+        try {
+            if (numVars > 0) {
+                model.getRealAttrArray(Mdo.REAL_ATTR_REDUCED_COST, 0, numVars, memory.share(varBytes));
+            }
+            if (numConss > 0) {
+                model.getRealAttrArray(Mdo.REAL_ATTR_DUAL_SOLUTION, 0, numConss, memory.share(2 * varBytes));
+            }
+        } catch (MdoException e) {
+            // No duals for MIP
+            hasDuals = false;
+            for (long offset = varBytes; offset < 2 * varBytes + consBytes; offset += MemoryUtil.DOUBLE_SIZE) {
+                memory.setDouble(offset, Double.NaN);
+            }
+        }
+        ByteBuffer data = memory.getByteBuffer(0, size).order(ByteOrder.nativeOrder());
+        return new MdoSolutionSnapshot(numVars, numConss, hasDuals, memory, data);
+    }
+
+    public int getNumVars() {
+        return numVars;
+    }
+
+    public int getNumConss() {
+        return numConss;
+    }
+
+    /**
+     * Check weather reduced costs and dual solution are available, they are NaN otherwise
+     * @return weather duals are available
+     */
+    public boolean hasDuals() {
+        return hasDuals;
+    }
+
+    /**
+     * Get the primal solution, indexed by variable index
+     * @return a read-only view of the primal solution
+     */
+    public DoubleBuffer getPrimalSoln() {
+        return view(0, numVars);
+    }
+
+    /**
+     * Get the reduced costs, indexed by variable index
+     * @return a read-only view of the reduced costs
+     */
+    public DoubleBuffer getReducedCost() {
+        return view(numVars, numVars);
+    }
+
+    /**
+     * Get the dual solution, indexed by constraint index
+     * @return a read-only view of the dual solution
+     */
+    public DoubleBuffer getDualSoln() {
+        return view(2L * numVars, numConss);
+    }
+
+    /**
+     * Get the activities, indexed by constraint index
+     * @return a read-only view of the activities
+     */
+    public DoubleBuffer getActivity() {
+        return view(2L * numVars + numConss, numConss);
+    }
+
+    private DoubleBuffer view(long offset, int len) {
+        // duplicate and slice reset the byte order to big-endian
+        ByteBuffer buf = data.duplicate();
+        buf.position((int) (offset * MemoryUtil.DOUBLE_SIZE));
+        buf.limit((int) ((offset + len) * MemoryUtil.DOUBLE_SIZE));
+        return buf.slice().order(data.order()).asDoubleBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Write the snapshot to a file through a memory mapping, replacing its content
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void dumpTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + data.capacity());
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(numVars).putInt(numConss).putInt(hasDuals ? FLAG_HAS_DUALS : 0);
+            out.position(HEADER_SIZE);
+            if (data.order() == ByteOrder.LITTLE_ENDIAN) {
+                out.put(data.duplicate());
+            } else {
+                DoubleBuffer src = data.duplicate().order(data.order()).asDoubleBuffer();
+                out.asDoubleBuffer().put(src);
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Map a file written by {@link #dumpTo(Path)}, values are read from the file on access
+     * @param file the file to map
+     * @return the snapshot
+     * @throws IOException if the file can't be mapped or is not a snapshot
+     */
+    public static MdoSolutionSnapshot map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not a solution snapshot: " + file);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a solution snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported solution snapshot version: " + version);
+            }
+            int numVars = in.getInt();
+            int numConss = in.getInt();
+            int flags = in.getInt();
+            long size = 2L * MemoryUtil.DOUBLE_SIZE * ((long) numVars + numConss);
+            if (numVars < 0 || numConss < 0 || HEADER_SIZE + size != fileSize) {
+                throw new IOException("Truncated or corrupted solution snapshot: " + file);
+            }
+            in.position(HEADER_SIZE);
+            ByteBuffer data = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new MdoSolutionSnapshot(numVars, numConss, (flags & FLAG_HAS_DUALS) != 0, null, data);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Solver status and solution captured from a model right after it was solved.
+ *
+ * The captured values are plain Java data, they stay valid after the model is modified or freed.
+ */
+public class MdoSolveOutcome {
+    private final MdoStatus status;
+    private final boolean hasSolution;
+    private final double primalObjVal;
+    private final double solutionTime;
+    private final double[] primalSoln;
+    private final double[] dualSoln;
+    // Status code, solution flag, objective value and solution time as written by writeTo
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 8;
+
+    private MdoSolveOutcome(MdoStatus status, boolean hasSolution, double primalObjVal, double solutionTime,
+                            double[] primalSoln, double[] dualSoln) {
+        this.status = status;
+        this.hasSolution = hasSolution;
+        this.primalObjVal = primalObjVal;
+        this.solutionTime = solutionTime;
+        this.primalSoln = primalSoln;
+        this.dualSoln = dualSoln;
+    }
+
+    static MdoSolveOutcome capture(MdoSolver solver) {
+        if (solver instanceof MdoModel) {
+            return capture((MdoModel) solver);
+        }
+        if (solver instanceof MdoProblem) {
+            return capture(solver.getStatus(), (MdoProblem) solver);
+        }
+        return new MdoSolveOutcome(solver.getStatus(), false, Double.NaN, Double.NaN, null, null);
+    }
+
+    static MdoSolveOutcome capture(MdoModel model) {
+        return capture(model.getStatus(), model);
+    }
+
+    private static MdoSolveOutcome capture(MdoStatus status, MdoProblem model) {
+        double solutionTime = model.getRealAttr(Mdo.REAL_ATTR_SOLUTION_TIME);
+        if (model.getIntAttr(Mdo.INT_ATTR_HAS_SOLUTION) == 0) {
+            return new MdoSolveOutcome(status, false, Double.NaN, solutionTime, null, null);
+        }
+        double primalObjVal = model.getRealAttr(Mdo.REAL_ATTR_PRIMAL_OBJ_VAL);
+        double[] primalSoln = model.getRealAttrArray(Mdo.REAL_ATTR_PRIMAL_SOLUTION, 0, model.getIntAttr(Mdo.INT_ATTR_NUM_VARS));
+        double[] dualSoln;
+        try {
+            dualSoln = model.getRealAttrArray(Mdo.REAL_ATTR_DUAL_SOLUTION, 0, model.getIntAttr(Mdo.INT_ATTR_NUM_CONSS));
+        } catch (MdoException e) {
+            // No dual solution for MIP
+            dualSoln = null;
+        }
+        return new MdoSolveOutcome(status, true, primalObjVal, solutionTime, primalSoln, dualSoln);
+    }
+
+    // Approximate heap size in bytes
+    long getSizeEstimate() {
+        return 64 + 8L * (primalSoln == null ? 0 : primalSoln.length) + 8L * (dualSoln == null ? 0 : dualSoln.length);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(status.getCode());
+        out.writeBoolean(hasSolution);
+        out.writeDouble(primalObjVal);
+        out.writeDouble(solutionTime);
+        writeArray(out, primalSoln);
+        writeArray(out, dualSoln);
+    }
+
+    /**
+     * Read an outcome written by {@link #writeTo(DataOutput)}
+     * @param in the input
+     * @param maxLength number of bytes left in the input, bounds the array lengths read
+     */
+    static MdoSolveOutcome readFrom(DataInput in, long maxLength) throws IOException {
+        MdoStatus status = MdoStatus.fromCode(in.readInt());
+        boolean hasSolution = in.readBoolean();
+        double primalObjVal = in.readDouble();
+        double solutionTime = in.readDouble();
+        long remaining = maxLength - HEADER_SIZE;
+        double[] primalSoln = readArray(in, remaining);
+        remaining -= arraySize(primalSoln);
+        double[] dualSoln = readArray(in, remaining);
+        return new MdoSolveOutcome(status, hasSolution, primalObjVal, solutionTime, primalSoln, dualSoln);
+    }
+
+    private static void writeArray(DataOutput out, double[] arr) throws IOException {
+        if (arr == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(arr.length);
+        for (double v : arr) {
+            out.writeDouble(v);
+        }
+    }
+
+    private static double[] readArray(DataInput in, long maxLength) throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            return null;
+        }
+        if (4L + 8L * len > maxLength) {
+            throw new IOException("Array length " + len + " exceeds the input");
+        }
+        double[] arr = new double[len];
+        for (int i = 0; i < len; i++) {
+            arr[i] = in.readDouble();
+        }
+        return arr;
+    }
+
+    private static long arraySize(double[] arr) {
+        return 4L + (arr == null ? 0L : 8L * arr.length);
+    }
+
+    /**
+     * Get the solver status
+     * @return the solver status
+     */
+    public MdoStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Check weather a solution is available
+     * @return weather a solution is available
+     */
+    public boolean hasSolution() {
+        return hasSolution;
+    }
+
+    /**
+     * Get the primal objective value
+     * @return the primal objective value, NaN if there is no solution
+     */
+    public double getPrimalObjVal() {
+        return primalObjVal;
+    }
+
+    /**
+     * Get the solution time
+     * @return the solution time, in seconds
+     */
+    public double getSolutionTime() {
+        return solutionTime;
+    }
+
+    /**
+     * Get a copy of the primal solution, indexed by variable index
+     * @return the primal solution, null if there is no solution
+     */
+    public double[] getPrimalSoln() {
+        return primalSoln == null ? null : primalSoln.clone();
+    }
+
+    /**
+     * Get the primal value of one variable without copying the solution
+     * @param index the variable index
+     * @return the primal value
+     * @throws IllegalStateException if there is no solution
+     */
+    public double getPrimalValue(int index) {
+        if (primalSoln == null) {
+            throw new IllegalStateException("No primal solution");
+        }
+        return primalSoln[index];
+    }
+
+    /**
+     * Get a copy of the dual solution, indexed by constraint index
+     * @return the dual solution, null if there is no solution or the problem has no duals
+     */
+    public double[] getDualSoln() {
+        return dualSoln == null ? null : dualSoln.clone();
+    }
+
+    /**
+     * Get the dual value of one constraint without copying the solution
+     * @param index the constraint index
+     * @return the dual value
+     * @throws IllegalStateException if there is no dual solution
+     */
+    public double getDualValue(int index) {
+        if (dualSoln == null) {
+            throw new IllegalStateException("No dual solution");
+        }
+        return dualSoln[index];
+    }
+}
@@ -1,6 +1,9 @@
 package com.alibaba.damo.mindopt;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public interface MdoSolver {
     enum RemoteTaskStatus {
@@ -153,6 +156,44 @@ public interface MdoSolver {
      */
     void solveProb();
 
+    /**
+     * Solve the loaded optimization problem on the given executor.
+     *
+     * The model must not be modified or solved again until the returned future completes. Cancelling the
+     * future only succeeds before the solve has started, the solve is then skipped. A running solve cannot be
+     * interrupted, {@code cancel} returns false and the future completes once the solve has ended, so that
+     * completion always means the model is free again. Solvers which are not also an {@link MdoProblem} only
+     * report the status.
+     * @param executor the executor to run the solve on
+     * @return a future completed with the status and solution, or exceptionally if the solve fails
+     */
+    default CompletableFuture<MdoSolveOutcome> solveAsync(Executor executor) {
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<MdoSolveOutcome> future = new CompletableFuture<MdoSolveOutcome>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // Whoever sets started first decides between running and skipping the solve
+                return started.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+            }
+        };
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Cancelled while queued, the solve is skipped
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    solveProb();
+                    future.complete(MdoSolveOutcome.capture(MdoSolver.this));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+        return future;
+    }
+
     /**
      * Display the current solver results
      */
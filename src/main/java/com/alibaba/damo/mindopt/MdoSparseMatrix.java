@@ -0,0 +1,103 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+/**
+ * Sparse matrix in compressed form, by columns (CSC) or by rows (CSR).
+ *
+ * Vector {@code k} holds the entries {@code bgn[k]} to {@code bgn[k + 1] - 1} of {@code indices} and {@code values},
+ * where indices are constraint indices for columns and variable indices for rows. The arrays are returned without
+ * copying.
+ */
+public class MdoSparseMatrix {
+    private final int[] vectorIndices;
+    private final int[] bgn;
+    private final int[] indices;
+    private final double[] values;
+
+    /**
+     * Create a sparse matrix
+     * @param vectorIndices the variable or constraint index of each vector
+     * @param bgn start of each vector, followed by the number of entries
+     * @param indices index of each entry within its vector
+     * @param values value of each entry
+     * @throws IllegalArgumentException if the array lengths or the vector starts are inconsistent
+     */
+    public MdoSparseMatrix(int[] vectorIndices, int[] bgn, int[] indices, double[] values) {
+        if (bgn.length != vectorIndices.length + 1 || indices.length != values.length
+                || bgn[0] != 0 || bgn[vectorIndices.length] != indices.length) {
+            throw new IllegalArgumentException("Inconsistent sparse matrix arrays");
+        }
+        for (int i = 0; i < vectorIndices.length; i++) {
+            if (bgn[i] > bgn[i + 1]) {
+                throw new IllegalArgumentException("Vector starts must be non-decreasing");
+            }
+        }
+        this.vectorIndices = vectorIndices;
+        this.bgn = bgn;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Get the number of vectors, columns for CSC or rows for CSR
+     * @return the number of vectors
+     */
+    public int getNumVectors() {
+        return vectorIndices.length;
+    }
+
+    /**
+     * Get the number of entries
+     * @return the number of entries
+     */
+    public int getNumElements() {
+        return indices.length;
+    }
+
+    /**
+     * Get the variable or constraint index of each vector
+     * @return the vector indices
+     */
+    public int[] getVectorIndices() {
+        return vectorIndices;
+    }
+
+    /**
+     * Get the start of each vector, followed by the number of entries
+     * @return the vector starts, of length {@code getNumVectors() + 1}
+     */
+    public int[] getBgn() {
+        return bgn;
+    }
+
+    /**
+     * Get the index of each entry within its vector
+     * @return the entry indices
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * Get the value of each entry
+     * @return the entry values
+     */
+    public double[] getValues() {
+        return values;
+    }
+}
@@ -102,6 +102,7 @@ public class MdoConsImpl implements MdoCons {
 
     @Override
     public int hashCode() {
-        return index;
+        // The index changes when earlier rows or columns are deleted, handles are unique per index
+        return System.identityHashCode(this);
     }
 }
@@ -0,0 +1,191 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+import com.alibaba.damo.mindopt.MdoCons;
+import com.alibaba.damo.mindopt.MdoProblem;
+import com.alibaba.damo.mindopt.MdoVar;
+
+import java.util.Arrays;
+
+/**
+ * Index-backed table of variable or constraint handles of a model.
+ *
+ * Only the number of rows or columns is tracked eagerly, a handle is created the first time its index is
+ * asked for and then kept, so that the same index always gives the same handle.
+ * @param <T> MdoVar or MdoCons
+ */
+public abstract class MdoHandleTable<T> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] handles = EMPTY;
+    private int size = 0;
+    private int version = 0;
+
+    /**
+     * Create a table of variable handles
+     * @param model the model owning the variables
+     * @return an empty table
+     */
+    public static MdoHandleTable<MdoVar> vars(final MdoProblem model) {
+        return new MdoHandleTable<MdoVar>() {
+            @Override
+            MdoVar create(int index) {
+                return new MdoVarImpl(model, index);
+            }
+
+            @Override
+            void setIndex(MdoVar handle, int index) {
+                ((MdoVarImpl) handle).index = index;
+            }
+        };
+    }
+
+    /**
+     * Create a table of constraint handles
+     * @param model the model owning the constraints
+     * @return an empty table
+     */
+    public static MdoHandleTable<MdoCons> conss(final MdoProblem model) {
+        return new MdoHandleTable<MdoCons>() {
+            @Override
+            MdoCons create(int index) {
+                return new MdoConsImpl(model, index);
+            }
+
+            @Override
+            void setIndex(MdoCons handle, int index) {
+                ((MdoConsImpl) handle).index = index;
+            }
+        };
+    }
+
+    abstract T create(int index);
+
+    abstract void setIndex(T handle, int index);
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the handle of an index, creating it on first access
+     * @param index an index between 0 and {@code size() - 1}
+     * @return the handle
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= handles.length) {
+            handles = Arrays.copyOf(handles, (int) Math.min(size, Math.max(16L, Math.max(index + 1L, handles.length * 2L))));
+        }
+        Object handle = handles[index];
+        if (handle == null) {
+            handle = create(index);
+            handles[index] = handle;
+        }
+        return (T) handle;
+    }
+
+    /**
+     * Append the handle of a newly added row or column
+     * @return the new handle
+     */
+    public T add() {
+        size++;
+        return get(size - 1);
+    }
+
+    /**
+     * Append handles for newly added rows or columns
+     * @param len number of rows or columns added
+     * @param result an array of {@code len} elements to fill
+     * @return {@code result}
+     */
+    public T[] append(int len, T[] result) {
+        int bgn = size;
+        size += len;
+        for (int i = 0; i < len; i++) {
+            result[i] = get(bgn + i);
+        }
+        return result;
+    }
+
+    /**
+     * Remove deleted rows or columns. Surviving handles are shifted down to their new index in place,
+     * handles of deleted indices get index -1.
+     * @param deleted indices of deleted rows or columns, sorted without duplicates
+     */
+    @SuppressWarnings("unchecked")
+    public void delete(int[] deleted) {
+        int limit = Math.min(handles.length, size);
+        int dst = deleted.length > 0 ? Math.min(deleted[0], limit) : limit;
+        for (int k = 0; k < deleted.length && deleted[k] < limit; k++) {
+            Object handle = handles[deleted[k]];
+            if (handle != null) {
+                setIndex((T) handle, -1);
+            }
+            // Move the run of surviving handles up to the next deleted index
+            int bgn = deleted[k] + 1;
+            int end = k + 1 < deleted.length ? Math.min(deleted[k + 1], limit) : limit;
+            for (int i = bgn; i < end; i++) {
+                handle = handles[i];
+                if (handle != null) {
+                    setIndex((T) handle, dst);
+                }
+                handles[dst++] = handle;
+            }
+        }
+        Arrays.fill(handles, dst, limit, null);
+        size -= deleted.length;
+        if (deleted.length > 0) {
+            version++;
+        }
+    }
+
+    /**
+     * Forget all handles, handles given out before are no longer tracked
+     * @param size the new number of rows or columns
+     */
+    public void reset(int size) {
+        this.handles = EMPTY;
+        this.size = size;
+        version++;
+    }
+
+    /**
+     * Get a counter which changes whenever indices given out before may have been shifted
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the handles of all indices
+     * @param result an array of {@code size()} elements to fill
+     * @return {@code result}
+     */
+    public T[] toArray(T[] result) {
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+}
@@ -16,12 +16,15 @@
 
 package com.alibaba.damo.mindopt.impl;
 
+import com.alibaba.damo.mindopt.MdoNativeBinding;
 import com.sun.jna.Callback;
 import com.sun.jna.Library;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
 
+import java.util.logging.Logger;
+
 public interface MdoNativeAPI extends Library {
     class InstanceHolder {
         static MdoNativeAPI INSTANCE;
@@ -29,8 +32,23 @@ public interface MdoNativeAPI extends Library {
             return INSTANCE;
         }
         public static void load(String libName) {
+            load(libName, MdoNativeBinding.INTERFACE);
+        }
+        public static void load(String libName, MdoNativeBinding binding) {
             if (INSTANCE == null) {
-                INSTANCE = (MdoNativeAPI) Native.loadLibrary(libName, MdoNativeAPI.class);
+                MdoNativeAPI api = (MdoNativeAPI) Native.loadLibrary(libName, MdoNativeAPI.class);
+                if (binding == MdoNativeBinding.DIRECT) {
+                    api = new MdoNativeDirect(libName, api);
+                } else if (binding == MdoNativeBinding.FFM) {
+                    if (MdoNativeFfm.isSupported()) {
+                        api = MdoNativeFfm.create(libName, api);
+                    } else {
+                        Logger.getLogger(MdoNativeAPI.class.getName()).warning(
+                                "FFM binding requires JDK 22 or later, falling back to JNA direct mapping");
+                        api = new MdoNativeDirect(libName, api);
+                    }
+                }
+                INSTANCE = api;
             }
         }
     }
@@ -0,0 +1,535 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+import com.sun.jna.Callback;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * Native API binding that uses JNA direct mapping for the high-frequency entry points
+ * (attribute accessors, column/row insertion and element access), and the interface mapping
+ * for everything else.
+ */
+public class MdoNativeDirect implements MdoNativeAPI {
+    /**
+     * Static native methods registered through {@code Native.register}
+     */
+    static class Direct {
+        static native int Mdo_setStrAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val);
+        static native int Mdo_getStrAttrIndex(Pointer mdl, Pointer att, int idx, int size, Pointer val);
+        static native int Mdo_setStrAttr(Pointer mdl, Pointer att, Pointer val);
+        static native int Mdo_setIntAttr(Pointer mdl, Pointer att, int val);
+        static native int Mdo_getStrAttr(Pointer mdl, Pointer att, int size, Pointer val);
+        static native int Mdo_getIntAttr(Pointer mdl, Pointer att, Pointer val);
+        static native int Mdo_setIntAttrIndex(Pointer mdl, Pointer att, int idx, int val);
+        static native int Mdo_getIntAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val);
+        static native int Mdo_setIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val);
+        static native int Mdo_getIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val);
+        static native int Mdo_setRealAttr(Pointer mdl, Pointer att, double val);
+        static native int Mdo_getRealAttr(Pointer mdl, Pointer att, Pointer val);
+        static native int Mdo_setRealAttrIndex(Pointer mdl, Pointer att, int idx, double val);
+        static native int Mdo_getRealAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val);
+        static native int Mdo_setRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val);
+        static native int Mdo_getRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val);
+        static native int Mdo_addCol(Pointer mdl, double lb, double ub, double obj, int size, Pointer indices, Pointer values, Pointer name, int is_integer);
+        static native int Mdo_addCols(Pointer mdl, int num_cols, Pointer lbs, Pointer ubs, Pointer objs, Pointer bgn, Pointer indices, Pointer values, Pointer col_names, Pointer are_integers);
+        static native int Mdo_addRow(Pointer mdl, double lhs, double rhs, int size, Pointer indices, Pointer values, Pointer name);
+        static native int Mdo_addRows(Pointer mdl, int num_rows, Pointer lhss, Pointer rhss, Pointer bgn, Pointer indices, Pointer values, Pointer row_names);
+        static native int Mdo_getElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values);
+        static native int Mdo_setElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values);
+    }
+
+    private final MdoNativeAPI fallback;
+
+    MdoNativeDirect(String libName, MdoNativeAPI fallback) {
+        Native.register(Direct.class, NativeLibrary.getInstance(libName));
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int Mdo_setStrAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+        return Direct.Mdo_setStrAttrIndex(mdl, att, idx, val);
+    }
+
+    @Override
+    public int Mdo_getStrAttrIndex(Pointer mdl, Pointer att, int idx, int size, Pointer val) {
+        return Direct.Mdo_getStrAttrIndex(mdl, att, idx, size, val);
+    }
+
+    @Override
+    public int Mdo_setStrAttr(Pointer mdl, Pointer att, Pointer val) {
+        return Direct.Mdo_setStrAttr(mdl, att, val);
+    }
+
+    @Override
+    public int Mdo_setIntAttr(Pointer mdl, Pointer att, int val) {
+        return Direct.Mdo_setIntAttr(mdl, att, val);
+    }
+
+    @Override
+    public int Mdo_getStrAttr(Pointer mdl, Pointer att, int size, Pointer val) {
+        return Direct.Mdo_getStrAttr(mdl, att, size, val);
+    }
+
+    @Override
+    public int Mdo_getIntAttr(Pointer mdl, Pointer att, Pointer val) {
+        return Direct.Mdo_getIntAttr(mdl, att, val);
+    }
+
+    @Override
+    public int Mdo_setIntAttrIndex(Pointer mdl, Pointer att, int idx, int val) {
+        return Direct.Mdo_setIntAttrIndex(mdl, att, idx, val);
+    }
+
+    @Override
+    public int Mdo_getIntAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+        return Direct.Mdo_getIntAttrIndex(mdl, att, idx, val);
+    }
+
+    @Override
+    public int Mdo_setIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+        return Direct.Mdo_setIntAttrArray(mdl, att, bgn, len, val);
+    }
+
+    @Override
+    public int Mdo_getIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+        return Direct.Mdo_getIntAttrArray(mdl, att, bgn, len, val);
+    }
+
+    @Override
+    public int Mdo_setRealAttr(Pointer mdl, Pointer att, double val) {
+        return Direct.Mdo_setRealAttr(mdl, att, val);
+    }
+
+    @Override
+    public int Mdo_getRealAttr(Pointer mdl, Pointer att, Pointer val) {
+        return Direct.Mdo_getRealAttr(mdl, att, val);
+    }
+
+    @Override
+    public int Mdo_setRealAttrIndex(Pointer mdl, Pointer att, int idx, double val) {
+        return Direct.Mdo_setRealAttrIndex(mdl, att, idx, val);
+    }
+
+    @Override
+    public int Mdo_getRealAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+        return Direct.Mdo_getRealAttrIndex(mdl, att, idx, val);
+    }
+
+    @Override
+    public int Mdo_setRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+        return Direct.Mdo_setRealAttrArray(mdl, att, bgn, len, val);
+    }
+
+    @Override
+    public int Mdo_getRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+        return Direct.Mdo_getRealAttrArray(mdl, att, bgn, len, val);
+    }
+
+    @Override
+    public int Mdo_startCmd(int argc, Pointer argv) {
+        return fallback.Mdo_startCmd(argc, argv);
+    }
+
+    @Override
+    public int Mdo_readProb(Pointer mdl, Pointer filename) {
+        return fallback.Mdo_readProb(mdl, filename);
+    }
+
+    @Override
+    public int Mdo_writeProb(Pointer mdl, Pointer filename) {
+        return fallback.Mdo_writeProb(mdl, filename);
+    }
+
+    @Override
+    public int Mdo_writeSoln(Pointer mdl, Pointer filename) {
+        return fallback.Mdo_writeSoln(mdl, filename);
+    }
+
+    @Override
+    public int Mdo_readTask(Pointer mdl, Pointer filename, int read_model, int read_param, int read_soln) {
+        return fallback.Mdo_readTask(mdl, filename, read_model, read_param, read_soln);
+    }
+
+    @Override
+    public int Mdo_writeTask(Pointer mdl, Pointer filename, int write_model, int write_param, int write_soln) {
+        return fallback.Mdo_writeTask(mdl, filename, write_model, write_param, write_soln);
+    }
+
+    @Override
+    public int Mdo_setLogToConsole(Pointer mdl, int flag) {
+        return fallback.Mdo_setLogToConsole(mdl, flag);
+    }
+
+    @Override
+    public int Mdo_setLogFile(Pointer mdl, Pointer filename) {
+        return fallback.Mdo_setLogFile(mdl, filename);
+    }
+
+    @Override
+    public int Mdo_setLogCallback(Pointer mdl, Callback logcb, Pointer userdata) {
+        return fallback.Mdo_setLogCallback(mdl, logcb, userdata);
+    }
+
+    @Override
+    public int Mdo_createEnv(PointerByReference env) {
+        return fallback.Mdo_createEnv(env);
+    }
+
+    @Override
+    public int Mdo_createMdlWithEnv(PointerByReference mdl, Pointer env) {
+        return fallback.Mdo_createMdlWithEnv(mdl, env);
+    }
+
+    @Override
+    public void Mdo_freeEnv(PointerByReference env) {
+        fallback.Mdo_freeEnv(env);
+    }
+
+    @Override
+    public int Mdo_createMdl(PointerByReference mdl) {
+        return fallback.Mdo_createMdl(mdl);
+    }
+
+    @Override
+    public void Mdo_freeMdl(PointerByReference mdl) {
+        fallback.Mdo_freeMdl(mdl);
+    }
+
+    @Override
+    public Pointer Mdo_copyMdl(Pointer mdl) {
+        return fallback.Mdo_copyMdl(mdl);
+    }
+
+    @Override
+    public int Mdo_loadModel(Pointer mdl, int num_cols, int num_rows, Pointer bgn, Pointer indices, Pointer values, Pointer lbs, Pointer ubs, Pointer objs, Pointer are_integers, double obj_const, int is_min, Pointer lhss, Pointer rhss, Pointer col_names, Pointer row_names) {
+        return fallback.Mdo_loadModel(mdl, num_cols, num_rows, bgn, indices, values, lbs, ubs, objs, are_integers, obj_const, is_min, lhss, rhss, col_names, row_names);
+    }
+
+    @Override
+    public int Mdo_addCol(Pointer mdl, double lb, double ub, double obj, int size, Pointer indices, Pointer values, Pointer name, int is_integer) {
+        return Direct.Mdo_addCol(mdl, lb, ub, obj, size, indices, values, name, is_integer);
+    }
+
+    @Override
+    public int Mdo_addCols(Pointer mdl, int num_cols, Pointer lbs, Pointer ubs, Pointer objs, Pointer bgn, Pointer indices, Pointer values, Pointer col_names, Pointer are_integers) {
+        return Direct.Mdo_addCols(mdl, num_cols, lbs, ubs, objs, bgn, indices, values, col_names, are_integers);
+    }
+
+    @Override
+    public int Mdo_addRow(Pointer mdl, double lhs, double rhs, int size, Pointer indices, Pointer values, Pointer name) {
+        return Direct.Mdo_addRow(mdl, lhs, rhs, size, indices, values, name);
+    }
+
+    @Override
+    public int Mdo_addRows(Pointer mdl, int num_rows, Pointer lhss, Pointer rhss, Pointer bgn, Pointer indices, Pointer values, Pointer row_names) {
+        return Direct.Mdo_addRows(mdl, num_rows, lhss, rhss, bgn, indices, values, row_names);
+    }
+
+    @Override
+    public int Mdo_getCols(Pointer mdl, int num_cols, Pointer col_indices, Pointer bgn, Pointer indices, Pointer values, int size, Pointer real_size) {
+        return fallback.Mdo_getCols(mdl, num_cols, col_indices, bgn, indices, values, size, real_size);
+    }
+
+    @Override
+    public int Mdo_getRows(Pointer mdl, int num_rows, Pointer row_indices, Pointer bgn, Pointer indices, Pointer values, int size, Pointer real_size) {
+        return fallback.Mdo_getRows(mdl, num_rows, row_indices, bgn, indices, values, size, real_size);
+    }
+
+    @Override
+    public int Mdo_isMinObjSense(Pointer mdl) {
+        return fallback.Mdo_isMinObjSense(mdl);
+    }
+
+    @Override
+    public int Mdo_isMaxObjSense(Pointer mdl) {
+        return fallback.Mdo_isMaxObjSense(mdl);
+    }
+
+    @Override
+    public void Mdo_setMinObjSense(Pointer mdl) {
+        fallback.Mdo_setMinObjSense(mdl);
+    }
+
+    @Override
+    public void Mdo_setMaxObjSense(Pointer mdl) {
+        fallback.Mdo_setMaxObjSense(mdl);
+    }
+
+    @Override
+    public double Mdo_getObjOffset(Pointer mdl) {
+        return fallback.Mdo_getObjOffset(mdl);
+    }
+
+    @Override
+    public void Mdo_setObjOffset(Pointer mdl, double obj_fix) {
+        fallback.Mdo_setObjOffset(mdl, obj_fix);
+    }
+
+    @Override
+    public int Mdo_getNumRows(Pointer mdl) {
+        return fallback.Mdo_getNumRows(mdl);
+    }
+
+    @Override
+    public int Mdo_getNumCols(Pointer mdl) {
+        return fallback.Mdo_getNumCols(mdl);
+    }
+
+    @Override
+    public int Mdo_getNumElements(Pointer mdl) {
+        return fallback.Mdo_getNumElements(mdl);
+    }
+
+    @Override
+    public int Mdo_getObjs(Pointer mdl, int size, Pointer indices, Pointer objs) {
+        return fallback.Mdo_getObjs(mdl, size, indices, objs);
+    }
+
+    @Override
+    public int Mdo_setObjs(Pointer mdl, int size, Pointer indices, Pointer objs) {
+        return fallback.Mdo_setObjs(mdl, size, indices, objs);
+    }
+
+    @Override
+    public int Mdo_getLbs(Pointer mdl, int size, Pointer indices, Pointer lbs) {
+        return fallback.Mdo_getLbs(mdl, size, indices, lbs);
+    }
+
+    @Override
+    public int Mdo_setLbs(Pointer mdl, int size, Pointer indices, Pointer lbs) {
+        return fallback.Mdo_setLbs(mdl, size, indices, lbs);
+    }
+
+    @Override
+    public int Mdo_getUbs(Pointer mdl, int size, Pointer indices, Pointer ubs) {
+        return fallback.Mdo_getUbs(mdl, size, indices, ubs);
+    }
+
+    @Override
+    public int Mdo_setUbs(Pointer mdl, int size, Pointer indices, Pointer ubs) {
+        return fallback.Mdo_setUbs(mdl, size, indices, ubs);
+    }
+
+    @Override
+    public int Mdo_getIntegers(Pointer mdl, int size, Pointer indices, Pointer are_integers) {
+        return fallback.Mdo_getIntegers(mdl, size, indices, are_integers);
+    }
+
+    @Override
+    public int Mdo_setIntegers(Pointer mdl, int size, Pointer indices, Pointer are_integers) {
+        return fallback.Mdo_setIntegers(mdl, size, indices, are_integers);
+    }
+
+    @Override
+    public int Mdo_getColName(Pointer mdl, int j, Pointer col_name, int size, Pointer real_size) {
+        return fallback.Mdo_getColName(mdl, j, col_name, size, real_size);
+    }
+
+    @Override
+    public int Mdo_setColNames(Pointer mdl, int size, Pointer indices, Pointer col_names) {
+        return fallback.Mdo_setColNames(mdl, size, indices, col_names);
+    }
+
+    @Override
+    public int Mdo_getColIndex(Pointer mdl, Pointer name) {
+        return fallback.Mdo_getColIndex(mdl, name);
+    }
+
+    @Override
+    public int Mdo_getLhss(Pointer mdl, int size, Pointer indices, Pointer lhss) {
+        return fallback.Mdo_getLhss(mdl, size, indices, lhss);
+    }
+
+    @Override
+    public int Mdo_setLhss(Pointer mdl, int size, Pointer indices, Pointer lhss) {
+        return fallback.Mdo_setLhss(mdl, size, indices, lhss);
+    }
+
+    @Override
+    public int Mdo_getRhss(Pointer mdl, int size, Pointer indices, Pointer rhss) {
+        return fallback.Mdo_getRhss(mdl, size, indices, rhss);
+    }
+
+    @Override
+    public int Mdo_setRhss(Pointer mdl, int size, Pointer indices, Pointer rhss) {
+        return fallback.Mdo_setRhss(mdl, size, indices, rhss);
+    }
+
+    @Override
+    public int Mdo_getRowName(Pointer mdl, int i, Pointer row_name, int size, Pointer real_size) {
+        return fallback.Mdo_getRowName(mdl, i, row_name, size, real_size);
+    }
+
+    @Override
+    public int Mdo_setRowNames(Pointer mdl, int size, Pointer indices, Pointer row_names) {
+        return fallback.Mdo_setRowNames(mdl, size, indices, row_names);
+    }
+
+    @Override
+    public int Mdo_getRowIndex(Pointer mdl, Pointer name) {
+        return fallback.Mdo_getRowIndex(mdl, name);
+    }
+
+    @Override
+    public int Mdo_getElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values) {
+        return Direct.Mdo_getElements(mdl, size, row_indices, col_indices, values);
+    }
+
+    @Override
+    public int Mdo_getQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2, Pointer values) {
+        return fallback.Mdo_getQuadraticElements(mdl, size, col_indices1, col_indices2, values);
+    }
+
+    @Override
+    public int Mdo_setQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2, Pointer values) {
+        return fallback.Mdo_setQuadraticElements(mdl, size, col_indices1, col_indices2, values);
+    }
+
+    @Override
+    public int Mdo_setElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values) {
+        return Direct.Mdo_setElements(mdl, size, row_indices, col_indices, values);
+    }
+
+    @Override
+    public int Mdo_deleteRows(Pointer mdl, int size, Pointer indices) {
+        return fallback.Mdo_deleteRows(mdl, size, indices);
+    }
+
+    @Override
+    public int Mdo_deleteCols(Pointer mdl, int size, Pointer indices) {
+        return fallback.Mdo_deleteCols(mdl, size, indices);
+    }
+
+    @Override
+    public int Mdo_deleteElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices) {
+        return fallback.Mdo_deleteElements(mdl, size, row_indices, col_indices);
+    }
+
+    @Override
+    public int Mdo_deleteQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2) {
+        return fallback.Mdo_deleteQuadraticElements(mdl, size, col_indices1, col_indices2);
+    }
+
+    @Override
+    public int Mdo_deleteAllElements(Pointer mdl) {
+        return fallback.Mdo_deleteAllElements(mdl);
+    }
+
+    @Override
+    public int Mdo_deleteAllQuadraticElements(Pointer mdl) {
+        return fallback.Mdo_deleteAllQuadraticElements(mdl);
+    }
+
+    @Override
+    public int Mdo_setStrParam(Pointer mdl, Pointer par, Pointer val) {
+        return fallback.Mdo_setStrParam(mdl, par, val);
+    }
+
+    @Override
+    public int Mdo_getStrParam(Pointer mdl, Pointer par, int size, Pointer val) {
+        return fallback.Mdo_getStrParam(mdl, par, size, val);
+    }
+
+    @Override
+    public int Mdo_setIntParam(Pointer mdl, Pointer par, int val) {
+        return fallback.Mdo_setIntParam(mdl, par, val);
+    }
+
+    @Override
+    public int Mdo_getIntParam(Pointer mdl, Pointer par, Pointer val) {
+        return fallback.Mdo_getIntParam(mdl, par, val);
+    }
+
+    @Override
+    public int Mdo_setRealParam(Pointer mdl, Pointer par, double val) {
+        return fallback.Mdo_setRealParam(mdl, par, val);
+    }
+
+    @Override
+    public int Mdo_getRealParam(Pointer mdl, Pointer par, Pointer val) {
+        return fallback.Mdo_getRealParam(mdl, par, val);
+    }
+
+    @Override
+    public int Mdo_submitTask(Pointer mdl, Pointer job_id) {
+        return fallback.Mdo_submitTask(mdl, job_id);
+    }
+
+    @Override
+    public int Mdo_retrieveTask(Pointer mdl, Pointer job_id, Pointer status, Pointer code, Pointer result, Pointer has_soln) {
+        return fallback.Mdo_retrieveTask(mdl, job_id, status, code, result, has_soln);
+    }
+
+    @Override
+    public int Mdo_solveProb(Pointer mdl) {
+        return fallback.Mdo_solveProb(mdl);
+    }
+
+    @Override
+    public void Mdo_displayResults(Pointer mdl) {
+        fallback.Mdo_displayResults(mdl);
+    }
+
+    @Override
+    public int Mdo_getStatus(Pointer mdl) {
+        return fallback.Mdo_getStatus(mdl);
+    }
+
+    @Override
+    public void Mdo_explainStatus(Pointer mdl, int status, Pointer reason) {
+        fallback.Mdo_explainStatus(mdl, status, reason);
+    }
+
+    @Override
+    public void Mdo_explainResult(Pointer mdl, int result, Pointer reason) {
+        fallback.Mdo_explainResult(mdl, result, reason);
+    }
+
+    @Override
+    public void Mdo_computeIIS(Pointer mdl) {
+        fallback.Mdo_computeIIS(mdl);
+    }
+
+    @Override
+    public int Mdo_relaxIntegrality(Pointer mdl) {
+        return fallback.Mdo_relaxIntegrality(mdl);
+    }
+
+    @Override
+    public int Mdo_addSymMat(Pointer mdl, int dim_mat, Pointer mat_name) {
+        return fallback.Mdo_addSymMat(mdl, dim_mat, mat_name);
+    }
+
+    @Override
+    public int Mdo_replaceSymMatObjs(Pointer mdl, int mat_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+        return fallback.Mdo_replaceSymMatObjs(mdl, mat_index, size, mat_row_indices, mat_col_indices, mat_values);
+    }
+
+    @Override
+    public int Mdo_replaceSymMatElements(Pointer mdl, int row_index, int col_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+        return fallback.Mdo_replaceSymMatElements(mdl, row_index, col_index, size, mat_row_indices, mat_col_indices, mat_values);
+    }
+
+    @Override
+    public int Mdo_getRealAttrSymMat(Pointer mdl, Pointer att, int mat_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+        return fallback.Mdo_getRealAttrSymMat(mdl, att, mat_index, size, mat_row_indices, mat_col_indices, mat_values);
+    }
+}
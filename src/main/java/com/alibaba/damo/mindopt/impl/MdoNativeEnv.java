@@ -38,10 +38,12 @@ public class MdoNativeEnv {
     public int createMdlWithEnv(
             MdoNativeModel model
     ) {
-        return inst().Mdo_createMdlWithEnv(
+        int result = inst().Mdo_createMdlWithEnv(
                 model.model,
                 env.getValue()
         );
+        model.track();
+        return result;
     }
 
     /**
@@ -0,0 +1,38 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+/**
+ * Native API binding built on the Foreign Function &amp; Memory API.
+ *
+ * The FFM implementation is compiled into the multi-release part of the jar and is only available on JDK 22+,
+ * this class is what older runtimes see.
+ */
+public class MdoNativeFfm {
+    /**
+     * Check weather the FFM binding is available on the current runtime
+     * @return true if the FFM binding can be used
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    // Not called on this runtime since isSupported() is false, the JNA binding is kept as is
+    static MdoNativeAPI create(String libName, MdoNativeAPI fallback) {
+        return fallback;
+    }
+}
@@ -20,10 +20,84 @@ import com.sun.jna.Callback;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The mindopt model native interface, it is strongly recommended to use MdoModel instead
  */
 public class MdoNativeModel {
+    // Rough footprint of the native model storage, used for the live byte estimate
+    private static final long MODEL_BYTES = 16 * 1024;
+    private static final long COL_BYTES = 96;
+    private static final long ROW_BYTES = 80;
+    private static final long ELEMENT_BYTES = 24;
+
+    private static final int OKAY = 0;
+
+    private static final Set<MdoNativeModel> LIVE = Collections.newSetFromMap(new ConcurrentHashMap<MdoNativeModel, Boolean>());
+    private static final AtomicLong LIVE_BYTES = new AtomicLong();
+
+    // Sizes as of the last change made through this object, guarded by this
+    private long numCols;
+    private long numRows;
+    private long numElements;
+    private long bytes;
+
+    /**
+     * Number of native models created and not yet freed
+     * @return the count of live native models
+     */
+    public static int getNumLive() {
+        return LIVE.size();
+    }
+
+    /**
+     * Estimate the native memory held by models created and not yet freed, from their numbers of
+     * rows, columns and nonzero entries. Solver work memory is not included.
+     *
+     * The sizes are tracked on the Java side as models are loaded, read, extended and shrunk, so the estimate
+     * can be read from any thread at any time, also while models are being solved.
+     * @return estimated bytes of live native models
+     */
+    public static long getLiveBytesEstimate() {
+        return LIVE_BYTES.get();
+    }
+
+    void track() {
+        if (getModel() != null) {
+            LIVE.add(this);
+            resize(0, 0, 0);
+        }
+    }
+
+    // Sizes are queried on the thread changing the model, which is the only one allowed to use it
+    private void resync() {
+        resize(getNumCols(), getNumRows(), getNumElements());
+    }
+
+    private synchronized void grow(long cols, long rows, long elements) {
+        resize(numCols + cols, numRows + rows, numElements + elements);
+    }
+
+    private synchronized void clearElements() {
+        resize(numCols, numRows, 0);
+    }
+
+    private synchronized void resize(long cols, long rows, long elements) {
+        if (!LIVE.contains(this)) {
+            return;
+        }
+        numCols = cols;
+        numRows = rows;
+        numElements = elements;
+        long newBytes = MODEL_BYTES + COL_BYTES * cols + ROW_BYTES * rows + ELEMENT_BYTES * elements;
+        LIVE_BYTES.addAndGet(newBytes - bytes);
+        bytes = newBytes;
+    }
+
     static MdoNativeAPI inst() {
         if (MdoNativeAPI.InstanceHolder.get() == null) {
             throw new RuntimeException("Mdo.load() needs to be called at very beginning.");
@@ -369,10 +443,14 @@ public class MdoNativeModel {
     public int readProb(
             Pointer filename
     ) {
-        return inst().Mdo_readProb(
+        int result = inst().Mdo_readProb(
                 getModel(),
                 filename
         );
+        if (result == OKAY) {
+            resync();
+        }
+        return result;
     }
     /**
      * Write an optimization problem to a file.
@@ -414,13 +492,19 @@ public class MdoNativeModel {
             int read_param,
             int read_soln
     ) {
-        return inst().Mdo_readTask(
+        int result = inst().Mdo_readTask(
                 getModel(),
                 filename,
                 read_model,
                 read_param,
                 read_soln
         );
+        if (result == OKAY) {
+            if (read_model != 0) {
+                resync();
+            }
+        }
+        return result;
     }
     /**
      * Write an optimization model task to a file.
@@ -492,9 +576,11 @@ public class MdoNativeModel {
      */
     public int createMdl(
     ) {
-        return inst().Mdo_createMdl(
+        int result = inst().Mdo_createMdl(
                 model
         );
+        track();
+        return result;
     }
 
     public void copyMdl(
@@ -503,13 +589,21 @@ public class MdoNativeModel {
         model.setValue( inst().Mdo_copyMdl(
                 native_mdl.getModel()
         ));
+        track();
+        if (getModel() != null) {
+            resync();
+        }
     }
 
     /**
      * Destroy a model and all associated data.
      */
-    public void freeMdl(
+    public synchronized void freeMdl(
     ) {
+        if (LIVE.remove(this)) {
+            LIVE_BYTES.addAndGet(-bytes);
+            bytes = 0;
+        }
         inst().Mdo_freeMdl(
                 model
         );
@@ -550,7 +644,7 @@ public class MdoNativeModel {
             Pointer col_names,
             Pointer row_names
     ) {
-        return inst().Mdo_loadModel(
+        int result = inst().Mdo_loadModel(
                 getModel(),
                 num_cols,
                 num_rows,
@@ -568,6 +662,10 @@ public class MdoNativeModel {
                 col_names,
                 row_names
         );
+        if (result == OKAY) {
+            resize(num_cols, num_rows, num_cols == 0 || bgn == null ? 0 : bgn.getInt((long) num_cols * 4));
+        }
+        return result;
     }
     /**
      * Introduce a new column to the model.
@@ -591,7 +689,7 @@ public class MdoNativeModel {
             Pointer name,
             int is_integer
     ) {
-        return inst().Mdo_addCol(
+        int result = inst().Mdo_addCol(
                 getModel(),
                 lb,
                 ub,
@@ -602,6 +700,10 @@ public class MdoNativeModel {
                 name,
                 is_integer
         );
+        if (result == OKAY) {
+            grow(1, 0, size);
+        }
+        return result;
     }
     /**
      * Add multiple columns to the model.
@@ -627,7 +729,7 @@ public class MdoNativeModel {
             Pointer col_names,
             Pointer are_integers
     ) {
-        return inst().Mdo_addCols(
+        int result = inst().Mdo_addCols(
                 getModel(),
                 num_cols,
                 lbs,
@@ -639,6 +741,10 @@ public class MdoNativeModel {
                 col_names,
                 are_integers
         );
+        if (result == OKAY) {
+            grow(num_cols, 0, num_cols == 0 || bgn == null ? 0 : bgn.getInt((long) num_cols * 4));
+        }
+        return result;
     }
     /**
      * Introduce a new linear constraint to the model.
@@ -658,7 +764,7 @@ public class MdoNativeModel {
             Pointer values,
             Pointer name
     ) {
-        return inst().Mdo_addRow(
+        int result = inst().Mdo_addRow(
                 getModel(),
                 lhs,
                 rhs,
@@ -667,6 +773,10 @@ public class MdoNativeModel {
                 values,
                 name
         );
+        if (result == OKAY) {
+            grow(0, 1, size);
+        }
+        return result;
     }
     /**
      * Add multiple rows to the model.
@@ -688,7 +798,7 @@ public class MdoNativeModel {
             Pointer values,
             Pointer row_names
     ) {
-        return inst().Mdo_addRows(
+        int result = inst().Mdo_addRows(
                 getModel(),
                 num_rows,
                 lhss,
@@ -698,6 +808,10 @@ public class MdoNativeModel {
                 values,
                 row_names
         );
+        if (result == OKAY) {
+            grow(0, num_rows, num_rows == 0 || bgn == null ? 0 : bgn.getInt((long) num_rows * 4));
+        }
+        return result;
     }
     /**
      * Extract a set of columns from the constraint matrix.
@@ -1223,13 +1337,17 @@ public class MdoNativeModel {
             Pointer col_indices,
             Pointer values
     ) {
-        return inst().Mdo_setElements(
+        int result = inst().Mdo_setElements(
                 getModel(),
                 size,
                 row_indices,
                 col_indices,
                 values
         );
+        if (result == OKAY) {
+            resync();
+        }
+        return result;
     }
     /**
      * Retrieve a set of values of all specified elements in the quadratic matrix of a quadratic program.
@@ -1285,11 +1403,15 @@ public class MdoNativeModel {
             int size,
             Pointer indices
     ) {
-        return inst().Mdo_deleteRows(
+        int result = inst().Mdo_deleteRows(
                 getModel(),
                 size,
                 indices
         );
+        if (result == OKAY) {
+            resync();
+        }
+        return result;
     }
     /**
      * Delete a set of columns.
@@ -1301,11 +1423,15 @@ public class MdoNativeModel {
             int size,
             Pointer indices
     ) {
-        return inst().Mdo_deleteCols(
+        int result = inst().Mdo_deleteCols(
                 getModel(),
                 size,
                 indices
         );
+        if (result == OKAY) {
+            resync();
+        }
+        return result;
     }
     /**
      * Delete a set of elements from the constraint matrix.
@@ -1319,12 +1445,16 @@ public class MdoNativeModel {
             Pointer row_indices,
             Pointer col_indices
     ) {
-        return inst().Mdo_deleteElements(
+        int result = inst().Mdo_deleteElements(
                 getModel(),
                 size,
                 row_indices,
                 col_indices
         );
+        if (result == OKAY) {
+            resync();
+        }
+        return result;
     }
     /**
      * Delete a set of elements from the quadratic matrix of a quadratic program.
@@ -1351,9 +1481,13 @@ public class MdoNativeModel {
      *  @return MdoResult code.
      */
     public int deleteAllElements() {
-        return inst().Mdo_deleteAllElements(
+        int result = inst().Mdo_deleteAllElements(
                 getModel()
         );
+        if (result == OKAY) {
+            clearElements();
+        }
+        return result;
     }
 
     /**
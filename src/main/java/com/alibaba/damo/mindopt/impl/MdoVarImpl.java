@@ -31,6 +31,10 @@ public class MdoVarImpl implements MdoVar {
         this.index = index;
     }
 
+    public MdoProblem getModel() {
+        return model;
+    }
+
     @Override
     public int getIndex() {
         return index;
@@ -102,6 +106,7 @@ public class MdoVarImpl implements MdoVar {
 
     @Override
     public int hashCode() {
-        return index;
+        // The index changes when earlier rows or columns are deleted, handles are unique per index
+        return System.identityHashCode(this);
     }
 }
@@ -27,6 +27,96 @@ public class MemoryUtil {
     public static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
     public static final int DOUBLE_SIZE = Double.SIZE / Byte.SIZE;
     public static final Pointer EMPTY_MEMORY = new Memory(1);
+    public static final int SCRATCH_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(SCRATCH_SIZE);
+        }
+    };
+
+    /**
+     * Per-thread bump allocator over one native block.
+     *
+     * Callers take a mark before a native call and release it afterwards, so that steady-state
+     * attribute and parameter access reuses the same native memory. Requests that do not fit
+     * into the remaining space fall back to a new {@code Memory}.
+     */
+    public static class Scratch {
+        private final Memory block;
+        private long offset;
+
+        Scratch(long size) {
+            block = new Memory(size);
+        }
+
+        public long mark() {
+            return offset;
+        }
+
+        public void release(long mark) {
+            offset = mark;
+        }
+
+        public Pointer allocate(long size) {
+            long aligned = (Math.max(size, 1) + 7) & ~7L;
+            if (offset + aligned > block.size()) {
+                return new Memory(Math.max(size, 1));
+            }
+            Pointer result = block.share(offset, aligned);
+            offset += aligned;
+            return result;
+        }
+
+        public Pointer charArray(String str) {
+            if (str == null) {
+                Pointer result = allocate(1);
+                result.setByte(0, (byte) 0);
+                return result;
+            }
+            byte[] bytes = Native.toByteArray(str);
+            Pointer result = allocate(bytes.length);
+            result.write(0, bytes, 0, bytes.length);
+            return result;
+        }
+
+        /**
+         * Native string of an attribute or parameter name, served from {@link NativeStringCache} when possible
+         */
+        public Pointer internedString(String str) {
+            Pointer p = str == null ? null : NativeStringCache.get(str);
+            return p != null ? p : charArray(str);
+        }
+
+        public Pointer intArray(int size) {
+            return allocate((long) INT_SIZE * size);
+        }
+
+        public Pointer doubleArray(int size) {
+            return allocate((long) DOUBLE_SIZE * size);
+        }
+
+        public Pointer intByReference() {
+            return intArray(1);
+        }
+
+        public Pointer doubleByReference() {
+            return doubleArray(1);
+        }
+
+        public Pointer nativeString() {
+            return allocate(Mdo.MAX_NATIVE_STR_LEN);
+        }
+    }
+
+    /**
+     * Get the scratch arena of the current thread
+     * @return the scratch arena
+     */
+    public static Scratch scratch() {
+        return SCRATCH.get();
+    }
 
     public static Pointer doubleArray(int size) {
         if (size == 0) {
@@ -39,13 +129,18 @@ public class MemoryUtil {
         if (doubleArr == null) {
             return Pointer.NULL;
         }
-        if (doubleArr.length == 0) {
-            return EMPTY_MEMORY;
+        return doubleArray(doubleArr, 0, doubleArr.length);
+    }
+
+    public static Pointer doubleArray(double[] doubleArr, int start, int len) {
+        if (doubleArr == null) {
+            return Pointer.NULL;
         }
-        Pointer result = doubleArray(doubleArr.length);
-        for (int i = 0; i < doubleArr.length; i++) {
-            setDouble(result, i, doubleArr[i]);
+        if (len == 0) {
+            return EMPTY_MEMORY;
         }
+        Pointer result = doubleArray(len);
+        result.write(0, doubleArr, start, len);
         return result;
     }
 
@@ -60,13 +155,35 @@ public class MemoryUtil {
         if (intArr == null) {
             return Pointer.NULL;
         }
-        if (intArr.length == 0) {
+        return intArray(intArr, 0, intArr.length);
+    }
+
+    public static Pointer intArray(int[] intArr, int start, int len) {
+        if (intArr == null) {
+            return Pointer.NULL;
+        }
+        if (len == 0) {
             return EMPTY_MEMORY;
         }
-        Pointer result = intArray(intArr.length);
-        for (int i = 0; i < intArr.length; i++) {
-            setInt(result, i, intArr[i]);
+        Pointer result = intArray(len);
+        result.write(0, intArr, start, len);
+        return result;
+    }
+
+    public static Pointer intArray(boolean[] boolArr, int start, int len) {
+        if (boolArr == null) {
+            return Pointer.NULL;
         }
+        int[] intArr = new int[len];
+        for (int i = 0; i < len; i++) {
+            intArr[i] = boolArr[start + i] ? 1 : 0;
+        }
+        return intArray(intArr, 0, len);
+    }
+
+    public static Pointer zeroIntArray(int size) {
+        Memory result = new Memory(INT_SIZE * Math.max(size, 1));
+        result.clear();
         return result;
     }
 
@@ -97,6 +214,18 @@ public class MemoryUtil {
         return new StringArray(stringArr);
     }
 
+    public static Pointer stringArray(String[] stringArr, int start, int len) {
+        if (stringArr == null) {
+            return Pointer.NULL;
+        }
+        if (start == 0 && len == stringArr.length) {
+            return stringArray(stringArr);
+        }
+        String[] slice = new String[len];
+        System.arraycopy(stringArr, start, slice, 0, len);
+        return stringArray(slice);
+    }
+
     public static Pointer nativeString() {
         return new Memory(Mdo.MAX_NATIVE_STR_LEN);
     }
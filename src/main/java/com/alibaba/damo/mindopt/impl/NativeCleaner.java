@@ -0,0 +1,95 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Releases native resources of objects that became unreachable without being freed explicitly.
+ *
+ * Release actions are registered against a Java object and run at most once, either when
+ * {@link Cleanable#clean()} is called or on a daemon thread once the object has been collected.
+ * An action must not reference the object it is registered for, otherwise it is never collected.
+ */
+public class NativeCleaner {
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+    private static final Set<Cleanable> PENDING = Collections.newSetFromMap(new ConcurrentHashMap<Cleanable, Boolean>());
+
+    static {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Reference<?> ref = QUEUE.remove();
+                        ((Cleanable) ref).clean();
+                    } catch (InterruptedException e) {
+                        // Keep draining, this thread lives as long as the process
+                    } catch (Throwable t) {
+                        // A failing action must not stop the other ones
+                    }
+                }
+            }
+        }, "mindopt-cleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Register a release action for an object
+     * @param referent the object owning the native resource
+     * @param action the release action, must not reference {@code referent}
+     * @return handle to run the action explicitly
+     */
+    public static Cleanable register(Object referent, Runnable action) {
+        Cleanable cleanable = new Cleanable(referent, action);
+        PENDING.add(cleanable);
+        return cleanable;
+    }
+
+    /**
+     * Number of registered release actions which have not run yet
+     * @return the count of pending actions
+     */
+    public static int getNumPending() {
+        return PENDING.size();
+    }
+
+    public static class Cleanable extends PhantomReference<Object> {
+        private final Runnable action;
+
+        private Cleanable(Object referent, Runnable action) {
+            super(referent, QUEUE);
+            this.action = action;
+        }
+
+        /**
+         * Run the release action, does nothing if it already ran
+         */
+        public void clean() {
+            if (PENDING.remove(this)) {
+                clear();
+                action.run();
+            }
+        }
+    }
+}
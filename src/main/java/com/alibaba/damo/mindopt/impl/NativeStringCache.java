@@ -0,0 +1,76 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+import com.alibaba.damo.mindopt.Mdo;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of pre-encoded native strings for attribute and parameter names.
+ *
+ * All string constants of {@link Mdo} are encoded once at class initialization, other names are
+ * encoded on first use until the cache is full. Cached strings are never freed.
+ */
+public class NativeStringCache {
+    public static final int MAX_ENTRIES = 4096;
+
+    private static final ConcurrentHashMap<String, Pointer> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        for (Field field : Mdo.class.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && field.getType() == String.class) {
+                try {
+                    String name = (String) field.get(null);
+                    CACHE.putIfAbsent(name, encode(name));
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private static Pointer encode(String str) {
+        byte[] bytes = Native.toByteArray(str);
+        Memory m = new Memory(bytes.length);
+        m.write(0, bytes, 0, bytes.length);
+        return m;
+    }
+
+    /**
+     * Get the cached native string of a name
+     * @param name the attribute or parameter name
+     * @return the native string, or null if the name is not cached and the cache is full
+     */
+    public static Pointer get(String name) {
+        Pointer p = CACHE.get(name);
+        if (p == null && CACHE.size() < MAX_ENTRIES) {
+            Pointer encoded = encode(name);
+            p = CACHE.putIfAbsent(name, encoded);
+            if (p == null) {
+                p = encoded;
+            }
+        }
+        return p;
+    }
+}
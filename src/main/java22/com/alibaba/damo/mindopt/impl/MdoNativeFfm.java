@@ -0,0 +1,728 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt.impl;
+
+import com.sun.jna.Callback;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.io.File;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Native API binding built on the Foreign Function &amp; Memory API.
+ *
+ * Attribute accessors, column/row insertion and element access are invoked through FFM downcall handles,
+ * everything else goes through the JNA interface mapping. Pointers handed in by {@link MdoNativeModel} are
+ * wrapped as zero-length segments, so no memory is copied.
+ */
+public class MdoNativeFfm {
+    /**
+     * Check weather the FFM binding is available on the current runtime
+     * @return true if the FFM binding can be used
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    static MdoNativeAPI create(String libName, MdoNativeAPI fallback) {
+        return new Binding(libName, fallback);
+    }
+
+    private static MethodHandle downcall(Linker linker, SymbolLookup lookup, String name, FunctionDescriptor descriptor,
+                                         boolean critical) {
+        MemorySegment symbol = lookup.find(name).orElseThrow(() -> new UnsatisfiedLinkError(name));
+        // A critical downcall blocks GC and safepoints while it runs, so it is only used for short calls
+        // which do not call back into Java
+        return critical
+                ? linker.downcallHandle(symbol, descriptor, Linker.Option.critical(false))
+                : linker.downcallHandle(symbol, descriptor);
+    }
+
+    private static MemorySegment segment(Pointer p) {
+        return p == null ? MemorySegment.NULL : MemorySegment.ofAddress(Pointer.nativeValue(p));
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new RuntimeException(t);
+    }
+
+    private static final class Binding implements MdoNativeAPI {
+        private final MdoNativeAPI fallback;
+        private final MethodHandle setStrAttrIndex;
+        private final MethodHandle setStrAttrIndexCritical;
+        private final MethodHandle getStrAttrIndex;
+        private final MethodHandle getStrAttrIndexCritical;
+        private final MethodHandle setStrAttr;
+        private final MethodHandle setStrAttrCritical;
+        private final MethodHandle setIntAttr;
+        private final MethodHandle setIntAttrCritical;
+        private final MethodHandle getStrAttr;
+        private final MethodHandle getStrAttrCritical;
+        private final MethodHandle getIntAttr;
+        private final MethodHandle getIntAttrCritical;
+        private final MethodHandle setIntAttrIndex;
+        private final MethodHandle setIntAttrIndexCritical;
+        private final MethodHandle getIntAttrIndex;
+        private final MethodHandle getIntAttrIndexCritical;
+        private final MethodHandle setIntAttrArray;
+        private final MethodHandle getIntAttrArray;
+        private final MethodHandle setRealAttr;
+        private final MethodHandle setRealAttrCritical;
+        private final MethodHandle getRealAttr;
+        private final MethodHandle getRealAttrCritical;
+        private final MethodHandle setRealAttrIndex;
+        private final MethodHandle setRealAttrIndexCritical;
+        private final MethodHandle getRealAttrIndex;
+        private final MethodHandle getRealAttrIndexCritical;
+        private final MethodHandle setRealAttrArray;
+        private final MethodHandle getRealAttrArray;
+        private final MethodHandle addCol;
+        private final MethodHandle addCols;
+        private final MethodHandle addRow;
+        private final MethodHandle addRows;
+        private final MethodHandle getElements;
+        private final MethodHandle setElements;
+        // Once any log callback is registered, a scalar accessor may report an error through it, which is an
+        // upcall and must not happen inside a critical downcall
+        private volatile boolean logCallbackSet;
+
+        Binding(String libName, MdoNativeAPI fallback) {
+            this.fallback = fallback;
+            Linker linker = Linker.nativeLinker();
+            // Resolve the library the same way JNA did, it stays loaded for the lifetime of the process
+            File file = NativeLibrary.getInstance(libName).getFile();
+            SymbolLookup lookup = file != null
+                    ? SymbolLookup.libraryLookup(file.toPath(), Arena.global())
+                    : SymbolLookup.libraryLookup(libName, Arena.global());
+            // Scalar attribute accessors are short and also get critical downcalls, which are used until a log
+            // callback is registered, bulk calls are bound normally
+            setStrAttrIndex = downcall(linker, lookup, "Mdo_setStrAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), false);
+            setStrAttrIndexCritical = downcall(linker, lookup, "Mdo_setStrAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), true);
+            getStrAttrIndex = downcall(linker, lookup, "Mdo_getStrAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), false);
+            getStrAttrIndexCritical = downcall(linker, lookup, "Mdo_getStrAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), true);
+            setStrAttr = downcall(linker, lookup, "Mdo_setStrAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+            setStrAttrCritical = downcall(linker, lookup, "Mdo_setStrAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), true);
+            setIntAttr = downcall(linker, lookup, "Mdo_setIntAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT), false);
+            setIntAttrCritical = downcall(linker, lookup, "Mdo_setIntAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT), true);
+            getStrAttr = downcall(linker, lookup, "Mdo_getStrAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), false);
+            getStrAttrCritical = downcall(linker, lookup, "Mdo_getStrAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), true);
+            getIntAttr = downcall(linker, lookup, "Mdo_getIntAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+            getIntAttrCritical = downcall(linker, lookup, "Mdo_getIntAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), true);
+            setIntAttrIndex = downcall(linker, lookup, "Mdo_setIntAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT), false);
+            setIntAttrIndexCritical = downcall(linker, lookup, "Mdo_setIntAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT), true);
+            getIntAttrIndex = downcall(linker, lookup, "Mdo_getIntAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), false);
+            getIntAttrIndexCritical = downcall(linker, lookup, "Mdo_getIntAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), true);
+            setIntAttrArray = downcall(linker, lookup, "Mdo_setIntAttrArray", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), false);
+            getIntAttrArray = downcall(linker, lookup, "Mdo_getIntAttrArray", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), false);
+            setRealAttr = downcall(linker, lookup, "Mdo_setRealAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_DOUBLE), false);
+            setRealAttrCritical = downcall(linker, lookup, "Mdo_setRealAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_DOUBLE), true);
+            getRealAttr = downcall(linker, lookup, "Mdo_getRealAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+            getRealAttrCritical = downcall(linker, lookup, "Mdo_getRealAttr", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS), true);
+            setRealAttrIndex = downcall(linker, lookup, "Mdo_setRealAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_DOUBLE), false);
+            setRealAttrIndexCritical = downcall(linker, lookup, "Mdo_setRealAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_DOUBLE), true);
+            getRealAttrIndex = downcall(linker, lookup, "Mdo_getRealAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), false);
+            getRealAttrIndexCritical = downcall(linker, lookup, "Mdo_getRealAttrIndex", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS), true);
+            setRealAttrArray = downcall(linker, lookup, "Mdo_setRealAttrArray", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), false);
+            getRealAttrArray = downcall(linker, lookup, "Mdo_getRealAttrArray", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS), false);
+            addCol = downcall(linker, lookup, "Mdo_addCol", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_DOUBLE, JAVA_DOUBLE, JAVA_DOUBLE, JAVA_INT, ADDRESS, ADDRESS, ADDRESS, JAVA_INT), false);
+            addCols = downcall(linker, lookup, "Mdo_addCols", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS), false);
+            addRow = downcall(linker, lookup, "Mdo_addRow", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_DOUBLE, JAVA_DOUBLE, JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+            addRows = downcall(linker, lookup, "Mdo_addRows", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS), false);
+            getElements = downcall(linker, lookup, "Mdo_getElements", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+            setElements = downcall(linker, lookup, "Mdo_setElements", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS, ADDRESS), false);
+        }
+
+        @Override
+        public int Mdo_setStrAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? setStrAttrIndex : setStrAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getStrAttrIndex(Pointer mdl, Pointer att, int idx, int size, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getStrAttrIndex : getStrAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, size, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setStrAttr(Pointer mdl, Pointer att, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? setStrAttr : setStrAttrCritical).invokeExact(segment(mdl), segment(att), segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setIntAttr(Pointer mdl, Pointer att, int val) {
+            try {
+                return (int) (logCallbackSet ? setIntAttr : setIntAttrCritical).invokeExact(segment(mdl), segment(att), val);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getStrAttr(Pointer mdl, Pointer att, int size, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getStrAttr : getStrAttrCritical).invokeExact(segment(mdl), segment(att), size, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getIntAttr(Pointer mdl, Pointer att, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getIntAttr : getIntAttrCritical).invokeExact(segment(mdl), segment(att), segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setIntAttrIndex(Pointer mdl, Pointer att, int idx, int val) {
+            try {
+                return (int) (logCallbackSet ? setIntAttrIndex : setIntAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, val);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getIntAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getIntAttrIndex : getIntAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+            try {
+                return (int) setIntAttrArray.invokeExact(segment(mdl), segment(att), bgn, len, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getIntAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+            try {
+                return (int) getIntAttrArray.invokeExact(segment(mdl), segment(att), bgn, len, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setRealAttr(Pointer mdl, Pointer att, double val) {
+            try {
+                return (int) (logCallbackSet ? setRealAttr : setRealAttrCritical).invokeExact(segment(mdl), segment(att), val);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getRealAttr(Pointer mdl, Pointer att, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getRealAttr : getRealAttrCritical).invokeExact(segment(mdl), segment(att), segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setRealAttrIndex(Pointer mdl, Pointer att, int idx, double val) {
+            try {
+                return (int) (logCallbackSet ? setRealAttrIndex : setRealAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, val);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getRealAttrIndex(Pointer mdl, Pointer att, int idx, Pointer val) {
+            try {
+                return (int) (logCallbackSet ? getRealAttrIndex : getRealAttrIndexCritical).invokeExact(segment(mdl), segment(att), idx, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_setRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+            try {
+                return (int) setRealAttrArray.invokeExact(segment(mdl), segment(att), bgn, len, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getRealAttrArray(Pointer mdl, Pointer att, int bgn, int len, Pointer val) {
+            try {
+                return (int) getRealAttrArray.invokeExact(segment(mdl), segment(att), bgn, len, segment(val));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_startCmd(int argc, Pointer argv) {
+            return fallback.Mdo_startCmd(argc, argv);
+        }
+
+        @Override
+        public int Mdo_readProb(Pointer mdl, Pointer filename) {
+            return fallback.Mdo_readProb(mdl, filename);
+        }
+
+        @Override
+        public int Mdo_writeProb(Pointer mdl, Pointer filename) {
+            return fallback.Mdo_writeProb(mdl, filename);
+        }
+
+        @Override
+        public int Mdo_writeSoln(Pointer mdl, Pointer filename) {
+            return fallback.Mdo_writeSoln(mdl, filename);
+        }
+
+        @Override
+        public int Mdo_readTask(Pointer mdl, Pointer filename, int read_model, int read_param, int read_soln) {
+            return fallback.Mdo_readTask(mdl, filename, read_model, read_param, read_soln);
+        }
+
+        @Override
+        public int Mdo_writeTask(Pointer mdl, Pointer filename, int write_model, int write_param, int write_soln) {
+            return fallback.Mdo_writeTask(mdl, filename, write_model, write_param, write_soln);
+        }
+
+        @Override
+        public int Mdo_setLogToConsole(Pointer mdl, int flag) {
+            return fallback.Mdo_setLogToConsole(mdl, flag);
+        }
+
+        @Override
+        public int Mdo_setLogFile(Pointer mdl, Pointer filename) {
+            return fallback.Mdo_setLogFile(mdl, filename);
+        }
+
+        @Override
+        public int Mdo_setLogCallback(Pointer mdl, Callback logcb, Pointer userdata) {
+            // Set before registering so that no critical downcall can run once the callback is live
+            if (logcb != null) {
+                logCallbackSet = true;
+            }
+            return fallback.Mdo_setLogCallback(mdl, logcb, userdata);
+        }
+
+        @Override
+        public int Mdo_createEnv(PointerByReference env) {
+            return fallback.Mdo_createEnv(env);
+        }
+
+        @Override
+        public int Mdo_createMdlWithEnv(PointerByReference mdl, Pointer env) {
+            return fallback.Mdo_createMdlWithEnv(mdl, env);
+        }
+
+        @Override
+        public void Mdo_freeEnv(PointerByReference env) {
+            fallback.Mdo_freeEnv(env);
+        }
+
+        @Override
+        public int Mdo_createMdl(PointerByReference mdl) {
+            return fallback.Mdo_createMdl(mdl);
+        }
+
+        @Override
+        public void Mdo_freeMdl(PointerByReference mdl) {
+            fallback.Mdo_freeMdl(mdl);
+        }
+
+        @Override
+        public Pointer Mdo_copyMdl(Pointer mdl) {
+            return fallback.Mdo_copyMdl(mdl);
+        }
+
+        @Override
+        public int Mdo_loadModel(Pointer mdl, int num_cols, int num_rows, Pointer bgn, Pointer indices, Pointer values, Pointer lbs, Pointer ubs, Pointer objs, Pointer are_integers, double obj_const, int is_min, Pointer lhss, Pointer rhss, Pointer col_names, Pointer row_names) {
+            return fallback.Mdo_loadModel(mdl, num_cols, num_rows, bgn, indices, values, lbs, ubs, objs, are_integers, obj_const, is_min, lhss, rhss, col_names, row_names);
+        }
+
+        @Override
+        public int Mdo_addCol(Pointer mdl, double lb, double ub, double obj, int size, Pointer indices, Pointer values, Pointer name, int is_integer) {
+            try {
+                return (int) addCol.invokeExact(segment(mdl), lb, ub, obj, size, segment(indices), segment(values), segment(name), is_integer);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_addCols(Pointer mdl, int num_cols, Pointer lbs, Pointer ubs, Pointer objs, Pointer bgn, Pointer indices, Pointer values, Pointer col_names, Pointer are_integers) {
+            try {
+                return (int) addCols.invokeExact(segment(mdl), num_cols, segment(lbs), segment(ubs), segment(objs), segment(bgn), segment(indices), segment(values), segment(col_names), segment(are_integers));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_addRow(Pointer mdl, double lhs, double rhs, int size, Pointer indices, Pointer values, Pointer name) {
+            try {
+                return (int) addRow.invokeExact(segment(mdl), lhs, rhs, size, segment(indices), segment(values), segment(name));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_addRows(Pointer mdl, int num_rows, Pointer lhss, Pointer rhss, Pointer bgn, Pointer indices, Pointer values, Pointer row_names) {
+            try {
+                return (int) addRows.invokeExact(segment(mdl), num_rows, segment(lhss), segment(rhss), segment(bgn), segment(indices), segment(values), segment(row_names));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getCols(Pointer mdl, int num_cols, Pointer col_indices, Pointer bgn, Pointer indices, Pointer values, int size, Pointer real_size) {
+            return fallback.Mdo_getCols(mdl, num_cols, col_indices, bgn, indices, values, size, real_size);
+        }
+
+        @Override
+        public int Mdo_getRows(Pointer mdl, int num_rows, Pointer row_indices, Pointer bgn, Pointer indices, Pointer values, int size, Pointer real_size) {
+            return fallback.Mdo_getRows(mdl, num_rows, row_indices, bgn, indices, values, size, real_size);
+        }
+
+        @Override
+        public int Mdo_isMinObjSense(Pointer mdl) {
+            return fallback.Mdo_isMinObjSense(mdl);
+        }
+
+        @Override
+        public int Mdo_isMaxObjSense(Pointer mdl) {
+            return fallback.Mdo_isMaxObjSense(mdl);
+        }
+
+        @Override
+        public void Mdo_setMinObjSense(Pointer mdl) {
+            fallback.Mdo_setMinObjSense(mdl);
+        }
+
+        @Override
+        public void Mdo_setMaxObjSense(Pointer mdl) {
+            fallback.Mdo_setMaxObjSense(mdl);
+        }
+
+        @Override
+        public double Mdo_getObjOffset(Pointer mdl) {
+            return fallback.Mdo_getObjOffset(mdl);
+        }
+
+        @Override
+        public void Mdo_setObjOffset(Pointer mdl, double obj_fix) {
+            fallback.Mdo_setObjOffset(mdl, obj_fix);
+        }
+
+        @Override
+        public int Mdo_getNumRows(Pointer mdl) {
+            return fallback.Mdo_getNumRows(mdl);
+        }
+
+        @Override
+        public int Mdo_getNumCols(Pointer mdl) {
+            return fallback.Mdo_getNumCols(mdl);
+        }
+
+        @Override
+        public int Mdo_getNumElements(Pointer mdl) {
+            return fallback.Mdo_getNumElements(mdl);
+        }
+
+        @Override
+        public int Mdo_getObjs(Pointer mdl, int size, Pointer indices, Pointer objs) {
+            return fallback.Mdo_getObjs(mdl, size, indices, objs);
+        }
+
+        @Override
+        public int Mdo_setObjs(Pointer mdl, int size, Pointer indices, Pointer objs) {
+            return fallback.Mdo_setObjs(mdl, size, indices, objs);
+        }
+
+        @Override
+        public int Mdo_getLbs(Pointer mdl, int size, Pointer indices, Pointer lbs) {
+            return fallback.Mdo_getLbs(mdl, size, indices, lbs);
+        }
+
+        @Override
+        public int Mdo_setLbs(Pointer mdl, int size, Pointer indices, Pointer lbs) {
+            return fallback.Mdo_setLbs(mdl, size, indices, lbs);
+        }
+
+        @Override
+        public int Mdo_getUbs(Pointer mdl, int size, Pointer indices, Pointer ubs) {
+            return fallback.Mdo_getUbs(mdl, size, indices, ubs);
+        }
+
+        @Override
+        public int Mdo_setUbs(Pointer mdl, int size, Pointer indices, Pointer ubs) {
+            return fallback.Mdo_setUbs(mdl, size, indices, ubs);
+        }
+
+        @Override
+        public int Mdo_getIntegers(Pointer mdl, int size, Pointer indices, Pointer are_integers) {
+            return fallback.Mdo_getIntegers(mdl, size, indices, are_integers);
+        }
+
+        @Override
+        public int Mdo_setIntegers(Pointer mdl, int size, Pointer indices, Pointer are_integers) {
+            return fallback.Mdo_setIntegers(mdl, size, indices, are_integers);
+        }
+
+        @Override
+        public int Mdo_getColName(Pointer mdl, int j, Pointer col_name, int size, Pointer real_size) {
+            return fallback.Mdo_getColName(mdl, j, col_name, size, real_size);
+        }
+
+        @Override
+        public int Mdo_setColNames(Pointer mdl, int size, Pointer indices, Pointer col_names) {
+            return fallback.Mdo_setColNames(mdl, size, indices, col_names);
+        }
+
+        @Override
+        public int Mdo_getColIndex(Pointer mdl, Pointer name) {
+            return fallback.Mdo_getColIndex(mdl, name);
+        }
+
+        @Override
+        public int Mdo_getLhss(Pointer mdl, int size, Pointer indices, Pointer lhss) {
+            return fallback.Mdo_getLhss(mdl, size, indices, lhss);
+        }
+
+        @Override
+        public int Mdo_setLhss(Pointer mdl, int size, Pointer indices, Pointer lhss) {
+            return fallback.Mdo_setLhss(mdl, size, indices, lhss);
+        }
+
+        @Override
+        public int Mdo_getRhss(Pointer mdl, int size, Pointer indices, Pointer rhss) {
+            return fallback.Mdo_getRhss(mdl, size, indices, rhss);
+        }
+
+        @Override
+        public int Mdo_setRhss(Pointer mdl, int size, Pointer indices, Pointer rhss) {
+            return fallback.Mdo_setRhss(mdl, size, indices, rhss);
+        }
+
+        @Override
+        public int Mdo_getRowName(Pointer mdl, int i, Pointer row_name, int size, Pointer real_size) {
+            return fallback.Mdo_getRowName(mdl, i, row_name, size, real_size);
+        }
+
+        @Override
+        public int Mdo_setRowNames(Pointer mdl, int size, Pointer indices, Pointer row_names) {
+            return fallback.Mdo_setRowNames(mdl, size, indices, row_names);
+        }
+
+        @Override
+        public int Mdo_getRowIndex(Pointer mdl, Pointer name) {
+            return fallback.Mdo_getRowIndex(mdl, name);
+        }
+
+        @Override
+        public int Mdo_getElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values) {
+            try {
+                return (int) getElements.invokeExact(segment(mdl), size, segment(row_indices), segment(col_indices), segment(values));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_getQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2, Pointer values) {
+            return fallback.Mdo_getQuadraticElements(mdl, size, col_indices1, col_indices2, values);
+        }
+
+        @Override
+        public int Mdo_setQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2, Pointer values) {
+            return fallback.Mdo_setQuadraticElements(mdl, size, col_indices1, col_indices2, values);
+        }
+
+        @Override
+        public int Mdo_setElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices, Pointer values) {
+            try {
+                return (int) setElements.invokeExact(segment(mdl), size, segment(row_indices), segment(col_indices), segment(values));
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int Mdo_deleteRows(Pointer mdl, int size, Pointer indices) {
+            return fallback.Mdo_deleteRows(mdl, size, indices);
+        }
+
+        @Override
+        public int Mdo_deleteCols(Pointer mdl, int size, Pointer indices) {
+            return fallback.Mdo_deleteCols(mdl, size, indices);
+        }
+
+        @Override
+        public int Mdo_deleteElements(Pointer mdl, int size, Pointer row_indices, Pointer col_indices) {
+            return fallback.Mdo_deleteElements(mdl, size, row_indices, col_indices);
+        }
+
+        @Override
+        public int Mdo_deleteQuadraticElements(Pointer mdl, int size, Pointer col_indices1, Pointer col_indices2) {
+            return fallback.Mdo_deleteQuadraticElements(mdl, size, col_indices1, col_indices2);
+        }
+
+        @Override
+        public int Mdo_deleteAllElements(Pointer mdl) {
+            return fallback.Mdo_deleteAllElements(mdl);
+        }
+
+        @Override
+        public int Mdo_deleteAllQuadraticElements(Pointer mdl) {
+            return fallback.Mdo_deleteAllQuadraticElements(mdl);
+        }
+
+        @Override
+        public int Mdo_setStrParam(Pointer mdl, Pointer par, Pointer val) {
+            return fallback.Mdo_setStrParam(mdl, par, val);
+        }
+
+        @Override
+        public int Mdo_getStrParam(Pointer mdl, Pointer par, int size, Pointer val) {
+            return fallback.Mdo_getStrParam(mdl, par, size, val);
+        }
+
+        @Override
+        public int Mdo_setIntParam(Pointer mdl, Pointer par, int val) {
+            return fallback.Mdo_setIntParam(mdl, par, val);
+        }
+
+        @Override
+        public int Mdo_getIntParam(Pointer mdl, Pointer par, Pointer val) {
+            return fallback.Mdo_getIntParam(mdl, par, val);
+        }
+
+        @Override
+        public int Mdo_setRealParam(Pointer mdl, Pointer par, double val) {
+            return fallback.Mdo_setRealParam(mdl, par, val);
+        }
+
+        @Override
+        public int Mdo_getRealParam(Pointer mdl, Pointer par, Pointer val) {
+            return fallback.Mdo_getRealParam(mdl, par, val);
+        }
+
+        @Override
+        public int Mdo_submitTask(Pointer mdl, Pointer job_id) {
+            return fallback.Mdo_submitTask(mdl, job_id);
+        }
+
+        @Override
+        public int Mdo_retrieveTask(Pointer mdl, Pointer job_id, Pointer status, Pointer code, Pointer result, Pointer has_soln) {
+            return fallback.Mdo_retrieveTask(mdl, job_id, status, code, result, has_soln);
+        }
+
+        @Override
+        public int Mdo_solveProb(Pointer mdl) {
+            return fallback.Mdo_solveProb(mdl);
+        }
+
+        @Override
+        public void Mdo_displayResults(Pointer mdl) {
+            fallback.Mdo_displayResults(mdl);
+        }
+
+        @Override
+        public int Mdo_getStatus(Pointer mdl) {
+            return fallback.Mdo_getStatus(mdl);
+        }
+
+        @Override
+        public void Mdo_explainStatus(Pointer mdl, int status, Pointer reason) {
+            fallback.Mdo_explainStatus(mdl, status, reason);
+        }
+
+        @Override
+        public void Mdo_explainResult(Pointer mdl, int result, Pointer reason) {
+            fallback.Mdo_explainResult(mdl, result, reason);
+        }
+
+        @Override
+        public void Mdo_computeIIS(Pointer mdl) {
+            fallback.Mdo_computeIIS(mdl);
+        }
+
+        @Override
+        public int Mdo_relaxIntegrality(Pointer mdl) {
+            return fallback.Mdo_relaxIntegrality(mdl);
+        }
+
+        @Override
+        public int Mdo_addSymMat(Pointer mdl, int dim_mat, Pointer mat_name) {
+            return fallback.Mdo_addSymMat(mdl, dim_mat, mat_name);
+        }
+
+        @Override
+        public int Mdo_replaceSymMatObjs(Pointer mdl, int mat_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+            return fallback.Mdo_replaceSymMatObjs(mdl, mat_index, size, mat_row_indices, mat_col_indices, mat_values);
+        }
+
+        @Override
+        public int Mdo_replaceSymMatElements(Pointer mdl, int row_index, int col_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+            return fallback.Mdo_replaceSymMatElements(mdl, row_index, col_index, size, mat_row_indices, mat_col_indices, mat_values);
+        }
+
+        @Override
+        public int Mdo_getRealAttrSymMat(Pointer mdl, Pointer att, int mat_index, int size, Pointer mat_row_indices, Pointer mat_col_indices, Pointer mat_values) {
+            return fallback.Mdo_getRealAttrSymMat(mdl, att, mat_index, size, mat_row_indices, mat_col_indices, mat_values);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.alibaba.damo.mindopt.impl.MdoVarImpl;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MdoExprLinearTest {
+    private static MdoProblem problem() {
+        return (MdoProblem) Proxy.newProxyInstance(MdoProblem.class.getClassLoader(), new Class<?>[]{MdoProblem.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void clearedExpressionCanBeReusedWithAnotherModel() {
+        MdoProblem a = problem();
+        MdoProblem b = problem();
+        for (boolean direct : new boolean[]{false, true}) {
+            MdoExprLinear expr = new MdoExprLinear(4, direct);
+            expr.addTerm(1, new MdoVarImpl(a, 0));
+            expr.addTerm(2, new MdoVarImpl(a, 1));
+            expr.clear();
+            expr.addTerm(3, new MdoVarImpl(b, 2));
+            assertEquals(1, expr.size());
+            assertEquals(3, expr.getCoeff(0), 0);
+        }
+    }
+
+    @Test
+    public void nonEmptyExpressionRejectsAnotherModel() {
+        MdoExprLinear expr = new MdoExprLinear();
+        expr.addTerm(1, new MdoVarImpl(problem(), 0));
+        try {
+            expr.addTerm(1, new MdoVarImpl(problem(), 0));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
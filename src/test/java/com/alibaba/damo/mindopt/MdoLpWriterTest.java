@@ -0,0 +1,90 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class MdoLpWriterTest {
+    private static final byte[] X = "x".getBytes(StandardCharsets.UTF_8);
+
+    private final MdoLpWriter writer = new MdoLpWriter();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private String number(double value) throws IOException {
+        writer.open(Channels.newChannel(out));
+        writer.number(value);
+        return finish();
+    }
+
+    private String bound(double lb, double ub) throws IOException {
+        writer.open(Channels.newChannel(out));
+        writer.bound(X, lb, ub);
+        return finish();
+    }
+
+    private String finish() throws IOException {
+        writer.flush();
+        writer.close();
+        String str = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        out.reset();
+        return str;
+    }
+
+    @Test
+    public void formatsIntegralNumbers() throws IOException {
+        assertEquals("0", number(0));
+        assertEquals("0", number(-0.0));
+        assertEquals("7", number(7));
+        assertEquals("-42", number(-42));
+        assertEquals("123456789012345", number(123456789012345.0));
+    }
+
+    @Test
+    public void formatsOtherNumbersShortest() throws IOException {
+        double[] values = {0.1, -2.5, 1e-7, 1.0 / 3, 1e15, 1e19, -Double.MIN_VALUE};
+        for (double v : values) {
+            String str = number(v);
+            assertEquals(Double.toString(v), str);
+            assertEquals(v, Double.parseDouble(str), 0);
+        }
+    }
+
+    @Test
+    public void formatsInfinity() throws IOException {
+        assertEquals("inf", number(Mdo.INFINITY));
+        assertEquals("-inf", number(-Mdo.INFINITY));
+        assertEquals("inf", number(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void formatsBounds() throws IOException {
+        assertEquals("", bound(0, Mdo.INFINITY));
+        assertEquals(" x free\n", bound(-Mdo.INFINITY, Mdo.INFINITY));
+        assertEquals(" x = 1.5\n", bound(1.5, 1.5));
+        assertEquals(" x <= 10\n", bound(0, 10));
+        assertEquals(" x >= -3\n", bound(-3, Mdo.INFINITY));
+        assertEquals(" -inf <= x <= -1\n", bound(-Mdo.INFINITY, -1));
+        assertEquals(" 0.5 <= x <= 2\n", bound(0.5, 2));
+    }
+}
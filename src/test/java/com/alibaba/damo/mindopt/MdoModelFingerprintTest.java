@@ -0,0 +1,90 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class MdoModelFingerprintTest {
+    private static MdoModelFingerprint hash(long... words) {
+        MdoModelFingerprint.Hasher hasher = new MdoModelFingerprint.Hasher();
+        for (long w : words) {
+            hasher.add(w);
+        }
+        return hasher.finish();
+    }
+
+    private static MdoModelFingerprint hash(double... values) {
+        MdoModelFingerprint.Hasher hasher = new MdoModelFingerprint.Hasher();
+        for (double v : values) {
+            hasher.add(v);
+        }
+        return hasher.finish();
+    }
+
+    @Test
+    public void sameInputSameFingerprint() {
+        assertEquals(hash(1L, 2L, 3L), hash(1L, 2L, 3L));
+        assertEquals(hash(1L, 2L, 3L).hashCode(), hash(1L, 2L, 3L).hashCode());
+    }
+
+    @Test
+    public void orderAndLengthMatter() {
+        assertNotEquals(hash(1L, 2L), hash(2L, 1L));
+        // A pending odd word is not the same as an explicit trailing zero
+        assertNotEquals(hash(1L), hash(1L, 0L));
+        assertNotEquals(hash(), hash(0L));
+        assertNotEquals(hash(1L, 2L, 3L), hash(1L, 2L));
+    }
+
+    @Test
+    public void signedZerosAreTheSameCoefficient() {
+        assertEquals(hash(1.5, 0.0), hash(1.5, -0.0));
+        assertNotEquals(hash(1.5, 0.0), hash(1.5, Double.MIN_VALUE));
+    }
+
+    @Test
+    public void stringRoundTrip() {
+        MdoModelFingerprint[] fingerprints = {
+                hash(), hash(1L), hash(-1L, Long.MIN_VALUE, 42L),
+                MdoModelFingerprint.fromString("00000000000000010000000000000002"),
+                MdoModelFingerprint.fromString("ffffffffffffffff8000000000000000"),
+        };
+        for (MdoModelFingerprint f : fingerprints) {
+            String str = f.toString();
+            assertEquals(32, str.length());
+            assertEquals(f, MdoModelFingerprint.fromString(str));
+        }
+        assertEquals("00000000000000010000000000000002",
+                MdoModelFingerprint.fromString("00000000000000010000000000000002").toString());
+    }
+
+    @Test
+    public void fromStringRejectsMalformedInput() {
+        String[] bad = {"", "0123", "000000000000000000000000000000000", "0000000000000000000000000000000g"};
+        for (String str : bad) {
+            try {
+                MdoModelFingerprint.fromString(str);
+                fail("Accepted " + str);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
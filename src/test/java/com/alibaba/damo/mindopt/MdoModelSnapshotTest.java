@@ -0,0 +1,120 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import com.sun.jna.Memory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MdoModelSnapshotTest {
+    private static final Path FILE = Paths.get("test.mdomdl");
+
+    private static Memory ints(int... values) {
+        Memory memory = new Memory(Math.max(1, values.length) * 4L);
+        memory.write(0, values, 0, values.length);
+        return memory;
+    }
+
+    private static void assertRejected(int[] bgn, int[] indices, int numVars, int numConss) {
+        try {
+            MdoModelSnapshot.checkMatrix(ints(bgn), ints(indices), numVars, numConss, indices.length, FILE);
+            fail("Accepted a damaged matrix");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void layoutAlignsSections() {
+        MdoModelSnapshot.Layout layout = new MdoModelSnapshot.Layout(2, 3, 4, 10);
+        long[] expected = {64, 80, 96, 128, 144, 160, 176, 184, 208, 232, 272};
+        for (int s = 0; s < MdoModelSnapshot.Layout.NUM_SECTIONS; s++) {
+            assertEquals(expected[s], layout.offsets[s]);
+            assertEquals(0, layout.offsets[s] % 8);
+        }
+        assertEquals(12, layout.sizes[MdoModelSnapshot.Layout.BGN]);
+        assertEquals(10, layout.sizes[MdoModelSnapshot.Layout.NAMES]);
+        // The names pool is last and not padded
+        assertEquals(282, layout.size);
+    }
+
+    @Test
+    public void layoutPadsSmallSections() {
+        MdoModelSnapshot.Layout layout = new MdoModelSnapshot.Layout(1, 0, 1, 0);
+        assertEquals(72, layout.offsets[MdoModelSnapshot.Layout.INDICES]);
+        assertEquals(80, layout.offsets[MdoModelSnapshot.Layout.VALUES]);
+        assertEquals(120, layout.offsets[MdoModelSnapshot.Layout.LHSS]);
+        assertEquals(128, layout.offsets[MdoModelSnapshot.Layout.NAMES]);
+        assertEquals(128, layout.size);
+    }
+
+    @Test
+    public void layoutOfEmptyModel() {
+        MdoModelSnapshot.Layout layout = new MdoModelSnapshot.Layout(0, 0, 0, 0);
+        for (int s = 0; s < MdoModelSnapshot.Layout.NUM_SECTIONS; s++) {
+            assertEquals(64, layout.offsets[s]);
+        }
+        assertEquals(64, layout.size);
+    }
+
+    @Test
+    public void checkMatrixAcceptsValidMatrix() throws IOException {
+        MdoModelSnapshot.checkMatrix(ints(0, 2, 2, 3), ints(0, 1, 1), 3, 2, 3, FILE);
+        MdoModelSnapshot.checkMatrix(ints(), ints(), 0, 5, 0, FILE);
+    }
+
+    @Test
+    public void checkMatrixRejectsBadStarts() {
+        // Not starting at 0, decreasing, not ending at the number of elements
+        assertRejected(new int[]{1, 2, 3}, new int[]{0, 0, 0}, 2, 1);
+        assertRejected(new int[]{0, 2, 1}, new int[]{0}, 2, 1);
+        assertRejected(new int[]{0, 1, 1}, new int[]{0, 0}, 2, 1);
+    }
+
+    @Test
+    public void checkMatrixRejectsRowIndicesOutOfRange() {
+        assertRejected(new int[]{0, 1, 2}, new int[]{0, 2}, 2, 2);
+        assertRejected(new int[]{0, 1, 2}, new int[]{-1, 0}, 2, 2);
+    }
+
+    @Test
+    public void checkMatrixRejectsElementsWithoutColumns() {
+        assertRejected(new int[]{0}, new int[]{0}, 0, 1);
+    }
+
+    @Test
+    public void checkMatrixReadsSeveralBlocks() throws IOException {
+        int numVars = 100000;
+        int[] bgn = new int[numVars + 1];
+        int[] indices = new int[numVars];
+        for (int j = 0; j < numVars; j++) {
+            bgn[j + 1] = j + 1;
+            indices[j] = j % 7;
+        }
+        MdoModelSnapshot.checkMatrix(ints(bgn), ints(indices), numVars, 7, numVars, FILE);
+        indices[numVars - 1] = 7;
+        assertRejected(bgn, indices, numVars, 7);
+        bgn[numVars - 1] = numVars + 1;
+        indices[numVars - 1] = 0;
+        assertRejected(bgn, indices, numVars, 7);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MdoMpsReaderTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void readsFixtureFromFile() throws Exception {
+        Path file = Paths.get(MdoMpsReaderTest.class.getResource("small.mps").toURI());
+        MdoMpsReader reader = new MdoMpsReader();
+        checkSmall(reader.read(file));
+        assertEquals("SMALL", reader.getProbName());
+    }
+
+    @Test
+    public void readsFixtureFromStream() throws Exception {
+        try (InputStream in = MdoMpsReaderTest.class.getResourceAsStream("small.mps")) {
+            checkSmall(new MdoMpsReader().read(in));
+        }
+    }
+
+    private static void checkSmall(MdoModelBuilder builder) {
+        assertEquals(3, builder.getNumVars());
+        assertEquals(4, builder.getNumConss());
+        assertEquals(5, builder.getNumElements());
+        assertEquals(2.5, builder.getObjConst(), EPS);
+
+        // Positive range on an E row widens upwards, negative range downwards
+        assertEquals(4.0, builder.getLhs(0), EPS);
+        assertEquals(6.0, builder.getRhs(0), EPS);
+        assertEquals(2.0, builder.getLhs(1), EPS);
+        assertEquals(5.0, builder.getRhs(1), EPS);
+        // Range on an L row, given without a set name
+        assertEquals(4.5, builder.getLhs(2), EPS);
+        assertEquals(6.0, builder.getRhs(2), EPS);
+        assertEquals(7.0, builder.getLhs(3), EPS);
+        assertEquals(Mdo.INFINITY, builder.getRhs(3), EPS);
+
+        // A negative UP bound with the default lower bound makes the variable unbounded below
+        assertEquals(-Mdo.INFINITY, builder.getLb(0), EPS);
+        assertEquals(-2.0, builder.getUb(0), EPS);
+        assertFalse(builder.isInteger(0));
+        assertEquals(1.0, builder.getObj(0), EPS);
+
+        assertTrue(builder.isInteger(1));
+        assertEquals(0.0, builder.getLb(1), EPS);
+        assertEquals(Mdo.INFINITY, builder.getUb(1), EPS);
+        assertEquals(2.0, builder.getObj(1), EPS);
+
+        // UP bound given without a set name
+        assertFalse(builder.isInteger(2));
+        assertEquals(0.0, builder.getLb(2), EPS);
+        assertEquals(8.0, builder.getUb(2), EPS);
+        assertEquals(-1.0, builder.getObj(2), EPS);
+    }
+
+    @Test
+    public void readsLineLongerThanBuffer() throws IOException {
+        char[] comment = new char[(1 << 20) + (1 << 19)];
+        Arrays.fill(comment, 'x');
+        String mps = "NAME LONG\n"
+                + "ROWS\n"
+                + " N obj\n"
+                + " L c1\n"
+                + "*" + new String(comment) + "\n"
+                + "COLUMNS\n"
+                + " x obj 1 c1 2\n"
+                + "RHS\n"
+                + " rhs c1 3\n"
+                + "ENDATA\n";
+        MdoModelBuilder builder = new MdoMpsReader().read(new ByteArrayInputStream(mps.getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(1, builder.getNumVars());
+        assertEquals(1, builder.getNumConss());
+        assertEquals(1, builder.getNumElements());
+        assertEquals(1.0, builder.getObj(0), EPS);
+        assertEquals(-Mdo.INFINITY, builder.getLhs(0), EPS);
+        assertEquals(3.0, builder.getRhs(0), EPS);
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MdoProgressParserTest {
+    private static final double EPS = 1e-12;
+
+    // Copies of the reused event
+    private static class Row {
+        MdoProgressParser.Phase phase;
+        long iteration;
+        double primalObj;
+        double dualObj;
+        double gap;
+        double time;
+        long nodes;
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final List<String> forwarded = new ArrayList<>();
+    private final MdoProgressParser parser = new MdoProgressParser(new MdoProgressParser.Listener() {
+        @Override
+        public void onProgress(MdoProgressParser.Event event) {
+            Row row = new Row();
+            row.phase = event.getPhase();
+            row.iteration = event.getIteration();
+            row.primalObj = event.getPrimalObj();
+            row.dualObj = event.getDualObj();
+            row.gap = event.getGap();
+            row.time = event.getTime();
+            row.nodes = event.getNodes();
+            rows.add(row);
+        }
+    }, new MdoModel.LogCallback() {
+        @Override
+        public void log(String msg) {
+            forwarded.add(msg);
+        }
+    });
+
+    @Test
+    public void parsesSimplexRows() {
+        parser.log("Simplex method began.\n");
+        parser.log("    Iteration       Objective       Dual Inf.     Primal Inf.     Time\n");
+        parser.log("            0     0.00000e+00      1.0000e+00      0.0000e+00     0.00s\n");
+        parser.log("            3    -1.25000e+01      0.0000e+00      0.0000e+00     0.01s\n");
+        parser.log("Simplex method terminated. Time : 0.010s\n");
+        parser.log("            7     1.0e+00      0.0e+00      0.0e+00     0.02s\n");
+
+        assertEquals(2, rows.size());
+        Row row = rows.get(1);
+        assertSame(MdoProgressParser.Phase.SIMPLEX, row.phase);
+        assertEquals(3, row.iteration);
+        assertEquals(-12.5, row.primalObj, EPS);
+        assertEquals(Double.NaN, row.dualObj, 0);
+        assertEquals(0.01, row.time, EPS);
+        assertEquals(-1, row.nodes);
+    }
+
+    @Test
+    public void parsesInteriorPointRows() {
+        // Several lines in one message
+        parser.log("Interior point method began.\n"
+                + " Iter         PrimalObj         DualObj PrimalInf DualInf  Time\n"
+                + "    0 +3.00000000e+00 +0.00000000e+00  1.00e+00 1.00e+00  0.01s\n"
+                + "   12 +2.00000001e+00 +1.99999999e+00  1.23e-09 4.56e-10  0.15s\n");
+
+        assertEquals(2, rows.size());
+        Row row = rows.get(1);
+        assertSame(MdoProgressParser.Phase.IPM, row.phase);
+        assertEquals(12, row.iteration);
+        assertEquals(2.00000001, row.primalObj, EPS);
+        assertEquals(1.99999999, row.dualObj, EPS);
+        assertEquals(0.15, row.time, EPS);
+    }
+
+    @Test
+    public void parsesMipRows() {
+        parser.log("Branch-and-cut method began.");
+        parser.log(" Nodes    Active   Incumbent     BestBound      Gap     Time");
+        parser.log("     0         1         inf    5.0000e+00        -    0.02s");
+        parser.log("H    5         3  8.0000e+00    6.0000e+00   25.00%    0.05s");
+        parser.log("*   10         0  7.0000e+00    7.0000e+00    0.00%    0.08s");
+
+        assertEquals(3, rows.size());
+        Row first = rows.get(0);
+        assertEquals(0, first.nodes);
+        assertEquals(Double.POSITIVE_INFINITY, first.primalObj, 0);
+        assertEquals(Double.NaN, first.gap, 0);
+        Row heuristic = rows.get(1);
+        assertSame(MdoProgressParser.Phase.MIP, heuristic.phase);
+        assertEquals(5, heuristic.nodes);
+        assertEquals(-1, heuristic.iteration);
+        assertEquals(8.0, heuristic.primalObj, EPS);
+        assertEquals(6.0, heuristic.dualObj, EPS);
+        assertEquals(0.25, heuristic.gap, EPS);
+        assertEquals(0.05, heuristic.time, EPS);
+        assertEquals(10, rows.get(2).nodes);
+        assertEquals(0.0, rows.get(2).gap, EPS);
+    }
+
+    @Test
+    public void parsesInfinityAndLongNumbers() {
+        parser.log(" Iter  PrimalObj  Time");
+        parser.log("    1       -inf  0.1");
+        parser.log("    2  123456789012345678901234  1e-3");
+
+        assertEquals(2, rows.size());
+        assertEquals(Double.NEGATIVE_INFINITY, rows.get(0).primalObj, 0);
+        assertSame(MdoProgressParser.Phase.UNKNOWN, rows.get(0).phase);
+        assertEquals(1.23456789012345678901234e23, rows.get(1).primalObj, 1e9);
+        assertEquals(0.001, rows.get(1).time, EPS);
+    }
+
+    @Test
+    public void ignoresTextWithoutHeader() {
+        parser.log("Model summary.\n");
+        parser.log(" Name      Rows  Columns\n");
+        parser.log("   10        20       30\n");
+        assertEquals(0, rows.size());
+    }
+
+    @Test
+    public void acceptsNullMessages() {
+        parser.log(null);
+        assertEquals(0, rows.size());
+        assertEquals(1, forwarded.size());
+        assertEquals("", forwarded.get(0));
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MdoSolutionCacheTest {
+    // Size estimate of an outcome without a solution
+    private static final long SIZE = 64;
+
+    private static final MdoModelFingerprint A = MdoModelFingerprint.fromString("0000000000000000000000000000000a");
+    private static final MdoModelFingerprint B = MdoModelFingerprint.fromString("0000000000000000000000000000000b");
+    private static final MdoModelFingerprint C = MdoModelFingerprint.fromString("0000000000000000000000000000000c");
+    private static final MdoModelFingerprint D = MdoModelFingerprint.fromString("0000000000000000000000000000000d");
+
+    private static MdoSolveOutcome outcome(MdoStatus status, double primalObjVal) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(status.getCode());
+        out.writeBoolean(false);
+        out.writeDouble(primalObjVal);
+        out.writeDouble(0);
+        out.writeInt(-1);
+        out.writeInt(-1);
+        return MdoSolveOutcome.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+    }
+
+    private static MdoSolveOutcome optimal(double primalObjVal) throws IOException {
+        return outcome(MdoStatus.MDO_OPTIMAL, primalObjVal);
+    }
+
+    @Test
+    public void lruEvictsLeastRecentlyUsed() throws IOException {
+        MdoSolutionCache cache = new MdoSolutionCache(2 * SIZE, MdoSolutionCache.Policy.LRU);
+        cache.put(A, optimal(1));
+        cache.put(B, optimal(2));
+        assertNotNull(cache.get(A));
+        cache.put(C, optimal(3));
+
+        assertNull(cache.get(B));
+        assertEquals(1, cache.get(A).getPrimalObjVal(), 0);
+        assertEquals(3, cache.get(C).getPrimalObjVal(), 0);
+        assertEquals(2 * SIZE, cache.getBytes());
+    }
+
+    @Test
+    public void lfuEvictsLeastFrequentlyUsed() throws IOException {
+        MdoSolutionCache cache = new MdoSolutionCache(3 * SIZE, MdoSolutionCache.Policy.LFU);
+        cache.put(A, optimal(1));
+        cache.put(B, optimal(2));
+        cache.put(C, optimal(3));
+        cache.get(A);
+        cache.get(A);
+        cache.get(C);
+        // B and D are used once each, B less recently
+        cache.put(D, optimal(4));
+
+        assertNull(cache.get(B));
+        assertNotNull(cache.get(A));
+        assertNotNull(cache.get(C));
+        assertNotNull(cache.get(D));
+    }
+
+    @Test
+    public void unprovenStatusIsNotCached() throws IOException {
+        MdoSolutionCache cache = new MdoSolutionCache(2 * SIZE, MdoSolutionCache.Policy.LRU);
+        cache.put(A, outcome(MdoStatus.MDO_SUB_OPTIMAL, 1));
+        assertNull(cache.get(A));
+        assertEquals(0, cache.getBytes());
+        assertEquals(1, cache.getNumMisses());
+    }
+
+    @Test
+    public void diskTierSurvivesRestart() throws IOException {
+        Path dir = Files.createTempDirectory("mdosol");
+        try {
+            // Nothing fits in memory, every hit comes from disk
+            MdoSolutionCache cache = new MdoSolutionCache(0, MdoSolutionCache.Policy.LRU, dir, 1 << 20);
+            cache.put(A, optimal(1));
+            assertTrue(cache.getDiskBytes() > 0);
+            assertEquals(1, cache.get(A).getPrimalObjVal(), 0);
+            assertEquals(1, cache.getNumDiskHits());
+
+            MdoSolutionCache reopened = new MdoSolutionCache(0, MdoSolutionCache.Policy.LRU, dir, 1 << 20);
+            assertEquals(cache.getDiskBytes(), reopened.getDiskBytes());
+            assertEquals(1, reopened.get(A).getPrimalObjVal(), 0);
+            assertFalse(hasTempFiles(dir));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void damagedDiskFileIsMiss() throws IOException {
+        Path dir = Files.createTempDirectory("mdosol");
+        try {
+            MdoSolutionCache cache = new MdoSolutionCache(0, MdoSolutionCache.Policy.LRU, dir, 1 << 20);
+            cache.put(A, optimal(1));
+            cache.put(B, optimal(2));
+            Path fileA = dir.resolve(A + ".mdosol");
+            Path fileB = dir.resolve(B + ".mdosol");
+            // Bad magic for A, an array length past the end of the file for B
+            Files.write(fileA, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            byte[] data = Files.readAllBytes(fileB);
+            data[data.length - 8] = 0x7f;
+            Files.write(fileB, data);
+
+            assertNull(cache.get(A));
+            assertNull(cache.get(B));
+            assertFalse(Files.exists(fileA));
+            assertFalse(Files.exists(fileB));
+            assertEquals(0, cache.getDiskBytes());
+            assertEquals(2, cache.getNumMisses());
+
+            // The entries can be written again
+            cache.put(A, optimal(1));
+            assertEquals(1, cache.get(A).getPrimalObjVal(), 0);
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void diskTierEvictsLeastRecentlyUsed() throws IOException {
+        Path dir = Files.createTempDirectory("mdosol");
+        try {
+            MdoSolutionCache cache = new MdoSolutionCache(0, MdoSolutionCache.Policy.LRU, dir, 1 << 20);
+            cache.put(A, optimal(1));
+            long fileSize = cache.getDiskBytes();
+            cache.clear();
+
+            cache = new MdoSolutionCache(0, MdoSolutionCache.Policy.LRU, dir, 2 * fileSize);
+            cache.put(A, optimal(1));
+            cache.put(B, optimal(2));
+            assertNotNull(cache.get(A));
+            cache.put(C, optimal(3));
+
+            assertEquals(2 * fileSize, cache.getDiskBytes());
+            assertFalse(Files.exists(dir.resolve(B + ".mdosol")));
+            assertNull(cache.get(B));
+            assertNotNull(cache.get(A));
+            assertNotNull(cache.get(C));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static boolean hasTempFiles(Path dir) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.tmp")) {
+            return stream.iterator().hasNext();
+        }
+    }
+
+    private static void deleteDir(Path dir) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
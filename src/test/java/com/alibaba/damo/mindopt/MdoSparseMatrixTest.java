@@ -0,0 +1,71 @@
+/**
+ * Copyright 1999-2021 Alibaba Cloud All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.damo.mindopt;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MdoSparseMatrixTest {
+    private static void assertRejected(int[] vectorIndices, int[] bgn, int[] indices, double[] values) {
+        try {
+            new MdoSparseMatrix(vectorIndices, bgn, indices, values);
+            fail("Accepted an inconsistent matrix");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void acceptsConsistentArrays() {
+        MdoSparseMatrix matrix = new MdoSparseMatrix(new int[]{3, 0, 5}, new int[]{0, 2, 2, 3},
+                new int[]{0, 4, 1}, new double[]{1.0, -2.0, 0.5});
+        assertEquals(3, matrix.getNumVectors());
+        assertEquals(3, matrix.getNumElements());
+        assertArrayEquals(new int[]{3, 0, 5}, matrix.getVectorIndices());
+        assertArrayEquals(new int[]{0, 2, 2, 3}, matrix.getBgn());
+        assertArrayEquals(new int[]{0, 4, 1}, matrix.getIndices());
+        assertArrayEquals(new double[]{1.0, -2.0, 0.5}, matrix.getValues(), 0);
+    }
+
+    @Test
+    public void acceptsEmptyMatrix() {
+        MdoSparseMatrix matrix = new MdoSparseMatrix(new int[0], new int[1], new int[0], new double[0]);
+        assertEquals(0, matrix.getNumVectors());
+        assertEquals(0, matrix.getNumElements());
+    }
+
+    @Test
+    public void rejectsWrongBgnLength() {
+        assertRejected(new int[]{0, 1}, new int[]{0, 1}, new int[]{0}, new double[]{1.0});
+        assertRejected(new int[]{0}, new int[]{0, 1, 1}, new int[]{0}, new double[]{1.0});
+    }
+
+    @Test
+    public void rejectsMismatchedEntries() {
+        assertRejected(new int[]{0}, new int[]{0, 2}, new int[]{0, 1}, new double[]{1.0});
+        assertRejected(new int[]{0}, new int[]{0, 1}, new int[]{0, 1}, new double[]{1.0, 2.0});
+    }
+
+    @Test
+    public void rejectsBadVectorStarts() {
+        assertRejected(new int[]{0, 1}, new int[]{0, 2, 1}, new int[]{0}, new double[]{1.0});
+        assertRejected(new int[]{0, 1}, new int[]{-1, 0, 1}, new int[]{0}, new double[]{1.0});
+        assertRejected(new int[]{0, 1}, new int[]{1, 1, 1}, new int[]{0}, new double[]{1.0});
+    }
+}
@@ -0,0 +1,27 @@
+* Covers ranges on E rows, negative UP bounds, integer markers and optional set names
+NAME          SMALL
+ROWS
+ N  COST
+ E  LIM1
+ E  LIM2
+ L  LIM3
+ G  LIM4
+COLUMNS
+    X1        COST         1.0   LIM1         1.0
+    X1        LIM3         1.0
+    MARKER                 'MARKER'                 'INTORG'
+    X2        COST         2.0   LIM2         1.0
+    X2        LIM4         1.0
+    MARKER                 'MARKER'                 'INTEND'
+    X3        COST        -1.0   LIM1         1.0
+RHS
+    RHS       LIM1         4.0   LIM2         5.0
+    RHS       COST        -2.5
+    LIM3      6.0         LIM4         7.0
+RANGES
+    RNG       LIM1         2.0   LIM2        -3.0
+    LIM3      1.5
+BOUNDS
+ UP BND       X1          -2.0
+ UP X3        8.0
+ENDATA